@@ -8,7 +8,6 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 
 @Entity
@@ -32,17 +31,28 @@ public class Activity {
     @Column(name = "occurs_at", nullable = false)
     private LocalDateTime occursAt;
 
-    // Muitos 'Activity' para um 'Trip', coluna 'trip_id' não pode ser nula
-    @ManyToOne
+    // Coluna 'duration_minutes' opcional; sem duração a atividade ocupa só o instante de 'occurs_at'
+    @Column(name = "duration_minutes")
+    private Integer durationMinutes;
+
+    // Muitos 'Activity' para um 'Trip', coluna 'trip_id' não pode ser nula; carregado sob demanda
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "trip_id", nullable = false)
     private Trip trip;
 
     // Construtor personalizado para criar uma 'Activity' a partir de um título, data/hora e uma viagem
-    public Activity(String title, String occursAt, Trip trip){
+    public Activity(String title, LocalDateTime occursAt, Trip trip){
+        this(title, occursAt, null, trip);
+    }
+
+    // Construtor personalizado para criar uma 'Activity' com duração em minutos, que pode ser nula
+    public Activity(String title, LocalDateTime occursAt, Integer durationMinutes, Trip trip){
         // Atribui o título da atividade
         this.title = title;
-        // Converte a string occursAt para LocalDateTime usando o formato ISO_DATE_TIME
-        this.occursAt = LocalDateTime.parse(occursAt, DateTimeFormatter.ISO_DATE_TIME);
+        // Atribui a data e hora, já convertida pelo deserializador do payload
+        this.occursAt = occursAt;
+        // Atribui a duração da atividade
+        this.durationMinutes = durationMinutes;
         // Atribui a viagem associada à atividade
         this.trip = trip;
     }
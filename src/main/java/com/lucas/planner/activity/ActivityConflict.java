@@ -0,0 +1,15 @@
+package com.lucas.planner.activity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Record ActivityConflict para encapsular um par de atividades da mesma viagem que se sobrepõem.
+ *
+ * parametro activity_id A atividade que começa primeiro (ou, no mesmo horário, a de menor id).
+ * parametro conflicting_activity_id A outra atividade do par.
+ * parametro overlap_starts_at Início do trecho em comum.
+ * parametro overlap_ends_at Fim do trecho em comum; igual ao início quando uma das atividades não tem duração.
+ */
+public record ActivityConflict(UUID activity_id, UUID conflicting_activity_id, LocalDateTime overlap_starts_at, LocalDateTime overlap_ends_at) {
+}
@@ -0,0 +1,90 @@
+package com.lucas.planner.activity;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Detecção de conflitos entre atividades: mantém um ActivitySchedule por viagem em um cache Caffeine,
+ * montado sob demanda com uma leitura pelo índice (trip_id, occurs_at, id) e atualizado a cada atividade registrada,
+ * para que validar uma inserção não precise reler as atividades da viagem.
+ * As atividades só entram no índice depois do commit; toda inserção de atividade passa pelo ActivityService,
+ * e a importação só cria viagens novas, que ainda não têm índice.
+ */
+@Component
+public class ActivityConflictDetector {
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    private final Cache<UUID, ActivitySchedule> schedules;
+
+    public ActivityConflictDetector(@Value("${planner.activities.schedules.maximum-size}") long maximumSize,
+                                    @Value("${planner.activities.schedules.expire-after-access}") Duration expireAfterAccess,
+                                    MeterRegistry meterRegistry) {
+        this.schedules = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.schedules, "activity-schedules");
+    }
+
+    /**
+     * Atividades da viagem que se sobrepõem ao intervalo [startsAt, endsAt).
+     *
+     * parametro tripId O UUID da viagem.
+     * parametro startsAt Início do intervalo.
+     * parametro endsAt Fim do intervalo; igual ao início para uma atividade sem duração.
+     * returna As atividades em conflito, em ordem de início.
+     */
+    public List<ActivitySlot> findOverlapping(UUID tripId, LocalDateTime startsAt, LocalDateTime endsAt) {
+        return this.schedule(tripId).overlapping(startsAt, endsAt);
+    }
+
+    /**
+     * Todos os pares de atividades da viagem que se sobrepõem.
+     *
+     * parametro tripId O UUID da viagem.
+     * returna Os conflitos, em ordem de início da primeira atividade de cada par.
+     */
+    public List<ActivityConflict> findConflicts(UUID tripId) {
+        return this.schedule(tripId).conflicts();
+    }
+
+    /**
+     * Inclui a atividade no índice da viagem quando a transação atual for confirmada; um rollback a descarta.
+     * O computeIfPresent espera uma montagem do índice em andamento, então a atividade não se perde
+     * se a leitura da montagem tiver começado antes do commit.
+     *
+     * parametro tripId O UUID da viagem.
+     * parametro slot O intervalo da nova atividade.
+     */
+    public void registerAfterCommit(UUID tripId, ActivitySlot slot) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                schedules.asMap().computeIfPresent(tripId, (id, schedule) -> {
+                    schedule.add(slot);
+                    return schedule;
+                });
+            }
+        });
+    }
+
+    private ActivitySchedule schedule(UUID tripId) {
+        return this.schedules.get(tripId, id -> new ActivitySchedule(this.activityRepository.findSlotsByTripId(id)));
+    }
+}
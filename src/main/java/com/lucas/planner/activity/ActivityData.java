@@ -11,6 +11,7 @@ import java.util.UUID;
  * parametro id Identificador único da atividade.
  * parametro title Título da atividade.
  * parametro occurs_at Data e hora em que a atividade ocorre.
+ * parametro duration_minutes Duração da atividade em minutos, ou nulo se não informada.
  */
-public record ActivityData(UUID id, String title, LocalDateTime occurs_at) {
+public record ActivityData(UUID id, String title, LocalDateTime occurs_at, Integer duration_minutes) {
 }
\ No newline at end of file
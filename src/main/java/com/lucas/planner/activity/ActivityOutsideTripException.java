@@ -0,0 +1,15 @@
+package com.lucas.planner.activity;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Lançada quando uma atividade não cabe no período da viagem ou tem duração negativa; respondida com 400.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class ActivityOutsideTripException extends RuntimeException {
+
+    public ActivityOutsideTripException(String message) {
+        super(message);
+    }
+}
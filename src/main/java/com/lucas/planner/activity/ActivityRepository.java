@@ -1,9 +1,18 @@
 package com.lucas.planner.activity;
 
+import com.lucas.planner.transfer.TransferActivity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Interface de repositório para a entidade Activity.
@@ -18,4 +27,67 @@ public interface ActivityRepository extends JpaRepository<Activity, UUID> {
      * retorna: uma lista de atividades associadas à viagem especificada.
      */
     List<Activity> findByTripId(UUID tripId);
+
+    /**
+     * Busca as atividades de uma viagem projetando direto em ActivityData,
+     * sem hidratar entidades nem carregar a viagem associada.
+     *
+     * parametro tripId o UUID da viagem associada às atividades.
+     * retorna: uma lista de ActivityData das atividades da viagem.
+     */
+    @Query("select new com.lucas.planner.activity.ActivityData(a.id, a.title, a.occursAt, a.durationMinutes) from Activity a where a.trip.id = :tripId")
+    List<ActivityData> findDataByTripId(@Param("tripId") UUID tripId);
+
+    /**
+     * Primeira página das atividades de uma viagem, ordenadas por (occurs_at, id).
+     * Servida pelo índice (trip_id, occurs_at, id).
+     *
+     * parametro tripId o UUID da viagem associada às atividades.
+     * parametro limit a quantidade máxima de atividades retornadas.
+     */
+    @Query("select new com.lucas.planner.activity.ActivityData(a.id, a.title, a.occursAt, a.durationMinutes) from Activity a where a.trip.id = :tripId order by a.occursAt, a.id")
+    List<ActivityData> findDataPageByTripId(@Param("tripId") UUID tripId, Limit limit);
+
+    /**
+     * Página seguinte das atividades de uma viagem, a partir da chave (occurs_at, id) do último item já entregue.
+     *
+     * parametro tripId o UUID da viagem associada às atividades.
+     * parametro occursAt o occurs_at do último item entregue.
+     * parametro afterId o id do último item entregue.
+     * parametro limit a quantidade máxima de atividades retornadas.
+     */
+    @Query("""
+            select new com.lucas.planner.activity.ActivityData(a.id, a.title, a.occursAt, a.durationMinutes) from Activity a
+            where a.trip.id = :tripId and a.occursAt >= :occursAt and (a.occursAt > :occursAt or a.id > :afterId)
+            order by a.occursAt, a.id
+            """)
+    List<ActivityData> findDataPageByTripIdAfter(@Param("tripId") UUID tripId, @Param("occursAt") LocalDateTime occursAt, @Param("afterId") UUID afterId, Limit limit);
+
+    /**
+     * Intervalos ocupados pelas atividades de uma viagem, ordenados por (occurs_at, id) pelo índice (trip_id, occurs_at, id).
+     * É a leitura que monta o índice de conflitos da viagem no ActivityConflictDetector.
+     *
+     * parametro tripId o UUID da viagem associada às atividades.
+     * retorna: os ActivitySlot das atividades da viagem.
+     */
+    @Query("select new com.lucas.planner.activity.ActivitySlot(a.id, a.occursAt, a.durationMinutes) from Activity a where a.trip.id = :tripId order by a.occursAt, a.id")
+    List<ActivitySlot> findSlotsByTripId(@Param("tripId") UUID tripId);
+
+    /**
+     * Lê em fluxo as atividades de uma viagem para a exportação NDJSON, em blocos de 1000 linhas,
+     * na ordem do índice (trip_id, occurs_at, id).
+     *
+     * parametro tripId o UUID da viagem associada às atividades.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lucas.planner.transfer.TransferActivity(a.trip.id, a.id, a.title, a.occursAt, a.durationMinutes) from Activity a where a.trip.id = :tripId order by a.occursAt, a.id")
+    Stream<TransferActivity> streamTransferByTripId(@Param("tripId") UUID tripId);
+
+    /**
+     * Lê em fluxo as atividades de todas as viagens para a exportação NDJSON, agrupadas por viagem
+     * na ordem do índice (trip_id, occurs_at, id).
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lucas.planner.transfer.TransferActivity(a.trip.id, a.id, a.title, a.occursAt, a.durationMinutes) from Activity a order by a.trip.id, a.occursAt, a.id")
+    Stream<TransferActivity> streamAllTransfer();
 }
\ No newline at end of file
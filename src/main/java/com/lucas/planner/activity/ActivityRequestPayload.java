@@ -1,11 +1,17 @@
 package com.lucas.planner.activity;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.lucas.planner.time.IsoLocalDateTimeDeserializer;
+
+import java.time.LocalDateTime;
+
 /**
  * Record ActivityRequestPayload para encapsular os dados de uma solicitação de criação de atividade.
  * Um record é uma classe imutável que simplifica a criação de classes de dados.
  *
  * parametro title Título da atividade.
- * parametro occurs_at Data e hora em que a atividade ocorre, representada como uma string.
+ * parametro occurs_at Data e hora em que a atividade ocorre, lida de uma string ISO-8601.
+ * parametro duration_minutes Duração da atividade em minutos; opcional.
  */
-public record ActivityRequestPayload(String title, String occurs_at) {
+public record ActivityRequestPayload(String title, @JsonDeserialize(using = IsoLocalDateTimeDeserializer.class) LocalDateTime occurs_at, Integer duration_minutes) {
 }
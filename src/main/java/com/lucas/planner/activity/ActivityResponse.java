@@ -1,5 +1,6 @@
 package com.lucas.planner.activity;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -7,6 +8,8 @@ import java.util.UUID;
  * Um record é uma classe imutável que simplifica a criação de classes de dados.
  *
  * parametro activityId O identificador único da atividade recém-criada.
+ * parametro conflicts Os identificadores das atividades da viagem que se sobrepõem à nova, pelo melhor esforço: as atividades
+ * só entram no índice depois do commit, então duas inserções simultâneas e sobrepostas não se listam.
  */
-public record ActivityResponse(UUID activityId) {
+public record ActivityResponse(UUID activityId, List<UUID> conflicts) {
 }
@@ -0,0 +1,227 @@
+package com.lucas.planner.activity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice em memória das atividades de uma viagem, ordenado por (início, id), para detectar sobreposições.
+ * Cada atividade ocupa o intervalo [início, início + duração); duas atividades conflitam quando começam no mesmo instante
+ * ou quando cada uma começa antes do fim da outra. As sobreposições com um intervalo vêm de uma árvore de intervalos
+ * (uma AVL pela mesma ordem, com o maior fim de cada subárvore): a busca descarta as subárvores que terminam antes
+ * do intervalo e as que começam depois dele, e só desce por caminhos que levam a alguma sobreposição:
+ * O((k + 1) log n) para k atividades encontradas, mesmo depois que uma atividade longa entra no índice.
+ * O TreeSet guarda a mesma ordem para a passada de conflicts() e descarta as inclusões repetidas.
+ * O índice é compartilhado pelas requisições da viagem, então leituras e inserções passam por um ReadWriteLock.
+ */
+public final class ActivitySchedule {
+
+    private static final Comparator<ActivitySlot> ORDER = Comparator.comparing(ActivitySlot::occursAt).thenComparing(ActivitySlot::id);
+
+    private final NavigableSet<ActivitySlot> slots = new TreeSet<>(ORDER);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Raiz da árvore de intervalos, com as mesmas atividades do TreeSet
+    private Node root;
+
+    ActivitySchedule(List<ActivitySlot> slots) {
+        slots.forEach(this::insert);
+    }
+
+    /**
+     * Retorna o fim de uma atividade; sem duração, o fim é o próprio início.
+     */
+    public static LocalDateTime endOf(LocalDateTime occursAt, Integer durationMinutes) {
+        return durationMinutes == null ? occursAt : occursAt.plusMinutes(durationMinutes);
+    }
+
+    /**
+     * Confere se uma atividade, com a sua duração, cabe inteira no período [tripStartsAt, tripEndsAt] da viagem.
+     *
+     * parametro occursAt Início da atividade.
+     * parametro durationMinutes Duração em minutos, ou nulo.
+     * parametro tripStartsAt Início da viagem.
+     * parametro tripEndsAt Fim da viagem.
+     * returna Falso se a atividade sair do período ou tiver duração negativa.
+     */
+    public static boolean fitsWithin(LocalDateTime occursAt, Integer durationMinutes, LocalDateTime tripStartsAt, LocalDateTime tripEndsAt) {
+        if (durationMinutes != null && durationMinutes < 0) {
+            return false;
+        }
+        return !occursAt.isBefore(tripStartsAt) && !endOf(occursAt, durationMinutes).isAfter(tripEndsAt);
+    }
+
+    /**
+     * Inclui uma atividade no índice; incluir a mesma atividade de novo não a duplica.
+     */
+    void add(ActivitySlot slot) {
+        this.lock.writeLock().lock();
+        try {
+            this.insert(slot);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Atividades do índice que se sobrepõem ao intervalo [startsAt, endsAt), em ordem de início.
+     */
+    List<ActivitySlot> overlapping(LocalDateTime startsAt, LocalDateTime endsAt) {
+        this.lock.readLock().lock();
+        try {
+            List<ActivitySlot> overlapping = new ArrayList<>();
+            collect(this.root, startsAt, endsAt, overlapping);
+            return overlapping;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Todos os pares de atividades que se sobrepõem, em uma passada pela ordem de início: para cada atividade,
+     * as seguintes são lidas só até a primeira que começa depois do seu fim. Custo O(n + k) para k conflitos.
+     */
+    List<ActivityConflict> conflicts() {
+        this.lock.readLock().lock();
+        try {
+            List<ActivityConflict> conflicts = new ArrayList<>();
+
+            for (ActivitySlot first : this.slots) {
+                LocalDateTime firstEnd = first.endsAt();
+
+                for (ActivitySlot second : this.slots.tailSet(first, false)) {
+                    // As seguintes começam no mesmo instante ou depois; a partir do fim da primeira, nenhuma a cruza mais
+                    if (!second.occursAt().equals(first.occursAt()) && !second.occursAt().isBefore(firstEnd)) {
+                        break;
+                    }
+
+                    LocalDateTime secondEnd = second.endsAt();
+                    conflicts.add(new ActivityConflict(first.id(), second.id(), second.occursAt(), secondEnd.isBefore(firstEnd) ? secondEnd : firstEnd));
+                }
+            }
+
+            return conflicts;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void insert(ActivitySlot slot) {
+        if (this.slots.add(slot)) {
+            this.root = insert(this.root, slot);
+        }
+    }
+
+    // Percorre a árvore em ordem, só pelas subárvores que podem ter atividades sobrepostas a [startsAt, endsAt)
+    private static void collect(Node node, LocalDateTime startsAt, LocalDateTime endsAt, List<ActivitySlot> overlapping) {
+        // Todas as atividades da subárvore terminam antes do início do intervalo
+        if (node == null || node.maxEnd.isBefore(startsAt)) {
+            return;
+        }
+
+        collect(node.left, startsAt, endsAt, overlapping);
+
+        LocalDateTime occursAt = node.slot.occursAt();
+        if (overlaps(occursAt, node.end, startsAt, endsAt)) {
+            overlapping.add(node.slot);
+        }
+
+        // À direita, as atividades começam no mesmo instante que esta ou depois
+        if (occursAt.isBefore(endsAt) || occursAt.equals(startsAt)) {
+            collect(node.right, startsAt, endsAt, overlapping);
+        }
+    }
+
+    private static Node insert(Node node, ActivitySlot slot) {
+        if (node == null) {
+            return new Node(slot);
+        }
+
+        if (ORDER.compare(slot, node.slot) < 0) {
+            node.left = insert(node.left, slot);
+        } else {
+            node.right = insert(node.right, slot);
+        }
+        return balance(node);
+    }
+
+    // Rotações da AVL; cada uma recalcula a altura e o maior fim dos dois nós que mudam de posição
+    private static Node balance(Node node) {
+        node.update();
+        int factor = height(node.left) - height(node.right);
+
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static boolean overlaps(LocalDateTime aStart, LocalDateTime aEnd, LocalDateTime bStart, LocalDateTime bEnd) {
+        return aStart.equals(bStart) || (aStart.isBefore(bEnd) && bStart.isBefore(aEnd));
+    }
+
+    // Nó da árvore de intervalos: a atividade, o seu fim e o maior fim entre as atividades da subárvore
+    private static final class Node {
+
+        private final ActivitySlot slot;
+        private final LocalDateTime end;
+        private LocalDateTime maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(ActivitySlot slot) {
+            this.slot = slot;
+            this.end = slot.endsAt();
+            this.maxEnd = this.end;
+        }
+
+        private void update() {
+            this.height = 1 + Math.max(ActivitySchedule.height(this.left), ActivitySchedule.height(this.right));
+            this.maxEnd = this.end;
+            if (this.left != null && this.left.maxEnd.isAfter(this.maxEnd)) {
+                this.maxEnd = this.left.maxEnd;
+            }
+            if (this.right != null && this.right.maxEnd.isAfter(this.maxEnd)) {
+                this.maxEnd = this.right.maxEnd;
+            }
+        }
+    }
+}
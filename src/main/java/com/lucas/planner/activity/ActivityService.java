@@ -1,9 +1,26 @@
 package com.lucas.planner.activity;
 
-import com.lucas.planner.trip.Trip;
+import com.lucas.planner.pagination.CursorPage;
+import com.lucas.planner.pagination.Cursors;
+import com.lucas.planner.stats.TripStatsService;
+import com.lucas.planner.time.IsoDateTimes;
+import com.lucas.planner.trip.TripChangedEvent;
+import com.lucas.planner.trip.TripData;
+import com.lucas.planner.trip.TripRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -11,28 +28,78 @@ import java.util.UUID;
  * Serviço responsável pela lógica de negócios relacionada a atividades.
  */
 @Service
+@Timed("planner.service")
 public class ActivityService {
 
     // Injeção de dependência do repositório de atividades
     @Autowired
     private ActivityRepository activityRepository;
 
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ActivityConflictDetector activityConflictDetector;
+
+    @Autowired
+    private TripStatsService tripStatsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${planner.activities.timeline.max-days}")
+    private int timelineMaxDays;
+
     /**
-     * Registra uma nova atividade com base nos dados fornecidos no payload e na viagem associada.
+     * Registra uma nova atividade na viagem depois de conferir que ela cabe no período da viagem.
+     * Atividades que se sobrepõem a outras são aceitas, pois colaboradores podem propor opções para o mesmo horário;
+     * os conflitos encontrados pelo índice em memória voltam na resposta.
      *
      * parametro payload Dados da solicitação de criação da atividade.
-     * parametro trip A viagem à qual a atividade está associada.
-     * returna a resposta contendo o identificador da nova atividade.
+     * parametro trip Os dados da viagem à qual a atividade está associada.
+     * returna a resposta contendo o identificador da nova atividade e as atividades com que ela conflita.
+     * lança ActivityOutsideTripException se a atividade sair do período da viagem ou tiver duração negativa.
      */
-    public ActivityResponse registerActivity(ActivityRequestPayload payload, Trip trip) {
-        // Cria uma nova instância de Activity com os dados do payload e da trip
-        Activity newActivity = new Activity(payload.title(), payload.occurs_at(), trip);
+    @Transactional
+    public ActivityResponse registerActivity(ActivityRequestPayload payload, TripData trip) {
+        if (payload.occurs_at() == null || !ActivitySchedule.fitsWithin(payload.occurs_at(), payload.duration_minutes(), trip.startsAt(), trip.endsAt())) {
+            throw new ActivityOutsideTripException("A atividade precisa de occurs_at dentro do período da viagem e de duração não negativa");
+        }
+
+        // Atividades já registradas que se sobrepõem à nova, pelo índice em memória da viagem
+        LocalDateTime endsAt = ActivitySchedule.endOf(payload.occurs_at(), payload.duration_minutes());
+        List<UUID> conflicts = this.activityConflictDetector.findOverlapping(trip.id(), payload.occurs_at(), endsAt).stream()
+                .map(ActivitySlot::id)
+                .toList();
+
+        // Cria uma nova instância de Activity com os dados do payload, referenciando a viagem sem carregá-la
+        Activity newActivity = new Activity(payload.title(), payload.occurs_at(), payload.duration_minutes(), this.tripRepository.getReferenceById(trip.id()));
 
         // Salva a nova atividade no banco de dados
         this.activityRepository.save(newActivity);
 
+        // Contador de atividades da viagem, gravado na mesma transação
+        this.tripStatsService.recordActivity(trip.id());
+
+        // A atividade entra no índice de conflitos só se a transação for confirmada
+        this.activityConflictDetector.registerAfterCommit(trip.id(), new ActivitySlot(newActivity.getId(), payload.occurs_at(), payload.duration_minutes()));
+
+        // Avisa os inscritos no feed de eventos da viagem
+        this.eventPublisher.publishEvent(new TripChangedEvent(trip.id(), TripChangedEvent.ACTIVITY_CREATED, newActivity.getId()));
+
         // Retorna a resposta contendo o ID da nova atividade
-        return new ActivityResponse(newActivity.getId());
+        return new ActivityResponse(newActivity.getId(), conflicts);
+    }
+
+    /**
+     * Obtém os pares de atividades de uma viagem que se sobrepõem, pelo índice em memória da viagem.
+     *
+     * parametro tripId O UUID da viagem.
+     * returna Os conflitos, em ordem de início da primeira atividade de cada par.
+     */
+    @Transactional(readOnly = true)
+    public List<ActivityConflict> getConflictsFromId(UUID tripId) {
+        return this.activityConflictDetector.findConflicts(tripId);
     }
 
     /**
@@ -41,10 +108,98 @@ public class ActivityService {
      * parametro tripId O UUID da viagem para a qual as atividades serão recuperadas.
      * returna uma lista de ActivityData contendo os dados das atividades.
      */
+    @Transactional(readOnly = true)
     public List<ActivityData> getAllActivitiesFromId(UUID tripId) {
-        // Busca as atividades pelo tripId e mapeia para ActivityData
-        return this.activityRepository.findByTripId(tripId).stream()
-                .map(activity -> new ActivityData(activity.getId(), activity.getTitle(), activity.getOccursAt()))
-                .toList();
+        // Busca as atividades pelo tripId já projetadas em ActivityData
+        return this.activityRepository.findDataByTripId(tripId);
+    }
+
+    /**
+     * Obtém uma página das atividades de uma viagem, ordenadas por (occurs_at, id).
+     *
+     * parametro tripId O UUID da viagem para a qual as atividades serão recuperadas.
+     * parametro cursor O cursor devolvido pela página anterior, ou nulo para a primeira página.
+     * parametro limit O tamanho da página.
+     * returna A página de ActivityData e o cursor da próxima página.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ActivityData> getActivitiesPageFromId(UUID tripId, String cursor, int limit) {
+        // Busca uma linha a mais para saber se existe próxima página
+        Limit fetch = Limit.of(limit + 1);
+
+        List<ActivityData> rows;
+        if (cursor == null) {
+            rows = this.activityRepository.findDataPageByTripId(tripId, fetch);
+        } else {
+            ActivityKey last = Cursors.decode(cursor, 2, keys -> new ActivityKey(IsoDateTimes.parse(keys.get(0)), UUID.fromString(keys.get(1))));
+            rows = this.activityRepository.findDataPageByTripIdAfter(tripId, last.occursAt(), last.id(), fetch);
+        }
+
+        return Cursors.page(rows, limit, activity -> Cursors.encode(activity.occurs_at(), activity.id()));
+    }
+
+    /**
+     * Monta a linha do tempo de uma viagem: um item por dia entre startsAt e endsAt, inclusive os dias sem atividades.
+     * Os horários gravados são UTC: sem fuso, os dias são contados em UTC; com um fuso, cada horário é convertido
+     * para ele antes da separação. Nenhuma atividade fica de fora: as que caem fora do período (gravadas antes
+     * de uma alteração das datas da viagem) estendem a linha do tempo até o seu dia.
+     * O banco entrega as atividades já ordenadas pelo índice (trip_id, occurs_at, id); a separação por dia é uma única passada.
+     *
+     * parametro tripId O UUID da viagem.
+     * parametro startsAt O início da viagem.
+     * parametro endsAt O fim da viagem.
+     * parametro zone O fuso em que os dias são contados, ou nulo para contá-los em UTC.
+     * returna Os dias da viagem, em ordem, cada um com as suas atividades.
+     * lança TimelineTooLongException se a linha do tempo passar de planner.activities.timeline.max-days dias.
+     */
+    @Transactional(readOnly = true)
+    public List<ActivityTimelineDay> getTimelineFromId(UUID tripId, LocalDateTime startsAt, LocalDateTime endsAt, ZoneId zone) {
+        List<ActivityData> rows = this.activityRepository.findDataPageByTripId(tripId, Limit.unlimited());
+
+        LocalDate firstDay = toZone(startsAt, zone).toLocalDate();
+        LocalDate lastDay = toZone(endsAt, zone).toLocalDate();
+        if (!rows.isEmpty()) {
+            LocalDate firstActivityDay = toZone(rows.get(0).occurs_at(), zone).toLocalDate();
+            LocalDate lastActivityDay = toZone(rows.get(rows.size() - 1).occurs_at(), zone).toLocalDate();
+            firstDay = firstActivityDay.isBefore(firstDay) ? firstActivityDay : firstDay;
+            lastDay = lastActivityDay.isAfter(lastDay) ? lastActivityDay : lastDay;
+        }
+
+        // As datas da viagem e das atividades vêm do cliente: sem limite, um período de séculos alocaria milhões de dias
+        long days = ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+        if (days > this.timelineMaxDays) {
+            throw new TimelineTooLongException("A linha do tempo teria " + days + " dias; o máximo é " + this.timelineMaxDays);
+        }
+
+        List<ActivityTimelineDay> timeline = new ArrayList<>((int) days);
+
+        // A conversão de fuso preserva a ordem, então os dias das linhas nunca voltam para trás
+        int next = 0;
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            List<ActivityData> activities = new ArrayList<>();
+
+            while (next < rows.size()) {
+                ActivityData row = rows.get(next);
+                LocalDateTime occursAt = toZone(row.occurs_at(), zone);
+                if (!occursAt.toLocalDate().equals(day)) {
+                    break;
+                }
+                activities.add(new ActivityData(row.id(), row.title(), occursAt, row.duration_minutes()));
+                next++;
+            }
+
+            timeline.add(new ActivityTimelineDay(day, activities));
+        }
+
+        return timeline;
+    }
+
+    // Converte um horário gravado (UTC) para o fuso pedido; sem fuso, mantém o horário em UTC
+    private static LocalDateTime toZone(LocalDateTime dateTime, ZoneId zone) {
+        return zone == null ? dateTime : dateTime.atOffset(ZoneOffset.UTC).atZoneSameInstant(zone).toLocalDateTime();
+    }
+
+    // Chave de ordenação (occurs_at, id) guardada no cursor das atividades
+    private record ActivityKey(LocalDateTime occursAt, UUID id) {
     }
 }
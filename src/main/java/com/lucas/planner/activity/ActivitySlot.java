@@ -0,0 +1,19 @@
+package com.lucas.planner.activity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Record ActivitySlot com o intervalo ocupado por uma atividade, o que o índice de conflitos guarda por viagem.
+ *
+ * parametro id Identificador único da atividade.
+ * parametro occursAt Início da atividade.
+ * parametro durationMinutes Duração em minutos, ou nulo se não informada.
+ */
+public record ActivitySlot(UUID id, LocalDateTime occursAt, Integer durationMinutes) {
+
+    // Retorna o fim da atividade; sem duração, o fim é o próprio início
+    public LocalDateTime endsAt() {
+        return ActivitySchedule.endOf(occursAt, durationMinutes);
+    }
+}
@@ -0,0 +1,13 @@
+package com.lucas.planner.activity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Record ActivityTimelineDay para encapsular as atividades de um dia da viagem.
+ *
+ * parametro date O dia.
+ * parametro activities As atividades do dia, ordenadas por occurs_at; vazia se não houver nenhuma.
+ */
+public record ActivityTimelineDay(LocalDate date, List<ActivityData> activities) {
+}
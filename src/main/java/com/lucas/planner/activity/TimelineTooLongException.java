@@ -0,0 +1,15 @@
+package com.lucas.planner.activity;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Lançada quando a linha do tempo de uma viagem teria mais dias que planner.activities.timeline.max-days; respondida com 400.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class TimelineTooLongException extends RuntimeException {
+
+    public TimelineTooLongException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,73 @@
+package com.lucas.planner.diagnostics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Métricas próprias do Planner, além das que o Actuator já registra (http.server.requests,
+ * spring.data.repository.invocations, hikaricp.* e os timers @Timed dos serviços):
+ * planner.http.sql.statements, a quantidade de instruções SQL por requisição, por método e rota.
+ */
+@Configuration
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    // Atributo da requisição que guarda o contador entre o despacho inicial e o despacho assíncrono
+    private static final String COUNTER_ATTRIBUTE = SqlStatementCounter.class.getName();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Aplicado pelo Spring Boot ao executor da aplicação e pelo TripItineraryService ao executor do itinerário:
+     * leva o contador de SQL e, se ligado, o SqlTrace da requisição para as tarefas submetidas por ela.
+     */
+    @Bean
+    public TaskDecorator sqlStatementCounterTaskDecorator() {
+        return task -> SqlTrace.propagate(SqlStatementCounter.propagate(task));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                // No despacho assíncrono o contador do despacho inicial é retomado
+                request.setAttribute(COUNTER_ATTRIBUTE, SqlStatementCounter.begin((AtomicInteger) request.getAttribute(COUNTER_ATTRIBUTE)));
+                return true;
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                SqlStatementCounter.end();
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                SqlStatementCounter.end();
+
+                AtomicInteger counter = (AtomicInteger) request.getAttribute(COUNTER_ATTRIBUTE);
+                Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+                DistributionSummary.builder("planner.http.sql.statements")
+                        .description("Instruções SQL preparadas pelo Hibernate por requisição")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                        .register(meterRegistry)
+                        .record(counter.get());
+            }
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package com.lucas.planner.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conta as instruções SQL que o Hibernate prepara durante uma requisição.
+ * Configurado pela propriedade hibernate.session_factory.statement_inspector; o contador da requisição fica em um
+ * ThreadLocal e é levado para as tarefas dos executores da aplicação e do itinerário por propagate, de modo que as consultas feitas
+ * em paralelo (como no itinerário) entram na conta da requisição que as disparou.
+ * Instruções emitidas direto pelo JdbcTemplate não passam pelo Hibernate e não são contadas.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Associa um contador à thread atual, começando do zero se counter for nulo.
+     *
+     * returna O contador associado.
+     */
+    static AtomicInteger begin(AtomicInteger counter) {
+        AtomicInteger current = counter == null ? new AtomicInteger() : counter;
+        CURRENT.set(current);
+        return current;
+    }
+
+    /**
+     * Desassocia o contador da thread atual.
+     */
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Embrulha uma tarefa para que ela conte as suas instruções no contador da thread que a submeteu.
+     */
+    static Runnable propagate(Runnable task) {
+        AtomicInteger counter = CURRENT.get();
+        if (counter == null) {
+            return task;
+        }
+
+        return () -> {
+            CURRENT.set(counter);
+            try {
+                task.run();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger counter = CURRENT.get();
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+        return sql;
+    }
+}
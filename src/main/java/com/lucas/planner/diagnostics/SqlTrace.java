@@ -0,0 +1,78 @@
+package com.lucas.planner.diagnostics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Acumulado das instruções SQL executadas por uma requisição: quantidade e tempo total no banco.
+ * Fica associado à thread que atende a requisição e, por propagate, às tarefas que ela submete aos executores da aplicação e do itinerário.
+ * Só existe quando planner.diagnostics.sql-trace.enabled=true; caso contrário current() é sempre nulo.
+ */
+final class SqlTrace {
+
+    private static final ThreadLocal<SqlTrace> CURRENT = new ThreadLocal<>();
+
+    private final String origin;
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    SqlTrace(String origin) {
+        this.origin = origin;
+    }
+
+    /**
+     * returna O trace da requisição atendida pela thread atual, ou nulo fora de uma requisição.
+     */
+    static SqlTrace current() {
+        return CURRENT.get();
+    }
+
+    static void attach(SqlTrace trace) {
+        CURRENT.set(trace);
+    }
+
+    static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Embrulha uma tarefa para que as suas instruções entrem no trace da thread que a submeteu.
+     */
+    static Runnable propagate(Runnable task) {
+        SqlTrace trace = CURRENT.get();
+        if (trace == null) {
+            return task;
+        }
+
+        return () -> {
+            CURRENT.set(trace);
+            try {
+                task.run();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    void record(int statements, long nanos) {
+        this.statements.addAndGet(statements);
+        this.nanos.addAndGet(nanos);
+    }
+
+    /**
+     * returna Método e caminho da requisição, como "GET /trips/{uuid}".
+     */
+    String origin() {
+        return this.origin;
+    }
+
+    int statements() {
+        return this.statements.get();
+    }
+
+    long nanos() {
+        return this.nanos.get();
+    }
+}
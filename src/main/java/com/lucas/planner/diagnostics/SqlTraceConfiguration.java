@@ -0,0 +1,49 @@
+package com.lucas.planner.diagnostics;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Trace de SQL por requisição (planner.diagnostics.sql-trace.enabled): envolve o DataSource com o datasource-proxy,
+ * que passa cada execução pelo SqlTraceListener, e registra o SqlTraceFilter.
+ * Desligado, nenhum destes beans existe e o DataSource é o Hikari sem intermediários.
+ */
+@Configuration
+@ConditionalOnProperty(name = "planner.diagnostics.sql-trace.enabled", havingValue = "true")
+public class SqlTraceConfiguration {
+
+    /**
+     * Estático para que o pós-processador seja criado antes do DataSource sem antecipar esta configuração.
+     */
+    @Bean
+    static BeanPostProcessor sqlTraceDataSourceWrapper(Environment environment) {
+        Duration slowThreshold = Binder.get(environment).bind("planner.diagnostics.sql-trace.slow-threshold", Duration.class).get();
+
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(new SqlTraceListener(slowThreshold))
+                        .build();
+            }
+        };
+    }
+
+    @Bean
+    SqlTraceFilter sqlTraceFilter() {
+        return new SqlTraceFilter();
+    }
+}
@@ -0,0 +1,61 @@
+package com.lucas.planner.diagnostics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+
+/**
+ * Abre um SqlTrace para cada requisição e, quando ela traz o cabeçalho X-Sql-Trace, devolve a quantidade de
+ * instruções (X-Sql-Count) e o tempo total no banco em milissegundos (X-Sql-Time-Ms).
+ * Como os cabeçalhos só são conhecidos ao final, a resposta é bufferizada, mas apenas nas requisições que pedem o trace.
+ */
+class SqlTraceFilter extends OncePerRequestFilter {
+
+    static final String TRACE_HEADER = "X-Sql-Trace";
+
+    static final String COUNT_HEADER = "X-Sql-Count";
+
+    static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private static final String TRACE_ATTRIBUTE = SqlTrace.class.getName();
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // Respostas assíncronas (exportação, SSE) terminam no despacho assíncrono, onde os cabeçalhos são escritos
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlTrace trace = (SqlTrace) request.getAttribute(TRACE_ATTRIBUTE);
+        if (trace == null) {
+            trace = new SqlTrace(request.getMethod() + " " + request.getRequestURI());
+            request.setAttribute(TRACE_ATTRIBUTE, trace);
+        }
+
+        HttpServletResponse target = response;
+        if (request.getHeader(TRACE_HEADER) != null && WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class) == null) {
+            target = new ContentCachingResponseWrapper(response);
+        }
+
+        SqlTrace.attach(trace);
+        try {
+            filterChain.doFilter(request, target);
+        } finally {
+            SqlTrace.detach();
+        }
+
+        ContentCachingResponseWrapper cached = WebUtils.getNativeResponse(target, ContentCachingResponseWrapper.class);
+        if (cached != null && !isAsyncStarted(request)) {
+            cached.setHeader(COUNT_HEADER, Integer.toString(trace.statements()));
+            cached.setHeader(TIME_HEADER, String.format("%.3f", trace.nanos() / 1_000_000.0));
+            cached.copyBodyToResponse();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.lucas.planner.diagnostics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Recebe do datasource-proxy cada execução de SQL e registra o tempo, a quantidade de parâmetros e a requisição de origem.
+ * Toda execução vai para o log planner.sql.trace em DEBUG; as que passam do limite vão para planner.sql.slow em WARN.
+ */
+class SqlTraceListener implements QueryExecutionListener {
+
+    private static final Logger traceLog = LoggerFactory.getLogger("planner.sql.trace");
+
+    private static final Logger slowLog = LoggerFactory.getLogger("planner.sql.slow");
+
+    // Chave do instante de início guardado no ExecutionInfo; o tempo do próprio proxy tem resolução de milissegundos
+    private static final String STARTED_AT = SqlTraceListener.class.getName();
+
+    private final long slowThresholdNanos;
+
+    SqlTraceListener(Duration slowThreshold) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(STARTED_AT, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long nanos = System.nanoTime() - execInfo.getCustomValue(STARTED_AT, Long.class);
+
+        // Em lotes, cada QueryInfo traz um conjunto de parâmetros por linha
+        int parameters = queryInfoList.stream()
+                .flatMap(query -> query.getParametersList().stream())
+                .mapToInt(List::size)
+                .sum();
+
+        SqlTrace trace = SqlTrace.current();
+        if (trace != null) {
+            trace.record(1, nanos);
+        }
+
+        boolean slow = nanos >= this.slowThresholdNanos;
+        if (!slow && !traceLog.isDebugEnabled()) {
+            return;
+        }
+
+        String origin = trace == null ? "thread " + Thread.currentThread().getName() : trace.origin();
+        String sql = queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        double millis = nanos / 1_000_000.0;
+
+        if (slow) {
+            slowLog.warn("SQL lenta: {} ms, {} parâmetros, lote de {}, em {}: {}", millis, parameters, execInfo.getBatchSize(), origin, sql);
+        } else {
+            traceLog.debug("{} ms, {} parâmetros, lote de {}, em {}: {}", millis, parameters, execInfo.getBatchSize(), origin, sql);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.lucas.planner.diagnostics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acompanha, via JFR, os eventos jdk.VirtualThreadPinned: momentos em que uma virtual thread ficou presa
+ * à sua carrier thread (por exemplo, bloqueando dentro de um synchronized) por mais que o limite configurado.
+ * O resultado fica disponível no endpoint do Actuator /actuator/pinning.
+ */
+@Component
+@Endpoint(id = "pinning")
+@ConditionalOnProperty(name = "planner.diagnostics.pinning.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    // Prefixo usado para achar, na pilha, o primeiro frame do próprio Planner
+    private static final String APPLICATION_PACKAGE = "com.lucas.planner.";
+
+    private final Duration threshold;
+
+    private final int recentSize;
+
+    private final Deque<PinnedEvent> recent = new ArrayDeque<>();
+
+    private final Map<String, LongAdder> countByFrame = new ConcurrentHashMap<>();
+
+    private final AtomicLong total = new AtomicLong();
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${planner.diagnostics.pinning.threshold}") Duration threshold,
+                                       @Value("${planner.diagnostics.pinning.recent-size}") int recentSize) {
+        this.threshold = threshold;
+        this.recentSize = recentSize;
+    }
+
+    @PostConstruct
+    void start() {
+        this.stream = new RecordingStream();
+        this.stream.enable("jdk.VirtualThreadPinned").withThreshold(this.threshold).withStackTrace();
+        this.stream.onEvent("jdk.VirtualThreadPinned", this::record);
+        this.stream.startAsync();
+    }
+
+    private void record(RecordedEvent event) {
+        List<String> stack = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .toList();
+
+        // Agrupa pelo primeiro frame da aplicação, que aponta o endpoint ou serviço responsável
+        String applicationFrame = stack.stream().filter(frame -> frame.startsWith(APPLICATION_PACKAGE)).findFirst().orElse("(fora da aplicação)");
+
+        PinnedEvent pinned = new PinnedEvent(event.getStartTime(), event.getDuration().toMillis(), event.getThread() == null ? null : event.getThread().getJavaName(), applicationFrame, stack);
+
+        this.total.incrementAndGet();
+        this.countByFrame.computeIfAbsent(applicationFrame, frame -> new LongAdder()).increment();
+
+        synchronized (this.recent) {
+            if (this.recent.size() == this.recentSize) {
+                this.recent.removeFirst();
+            }
+            this.recent.addLast(pinned);
+        }
+    }
+
+    /**
+     * Resumo dos eventos de pinning observados desde o início da aplicação.
+     */
+    @ReadOperation
+    public PinningReport report() {
+        Map<String, Long> byFrame = new ConcurrentHashMap<>();
+        this.countByFrame.forEach((frame, count) -> byFrame.put(frame, count.sum()));
+
+        List<PinnedEvent> events;
+        synchronized (this.recent) {
+            events = List.copyOf(this.recent);
+        }
+
+        return new PinningReport(this.threshold.toMillis(), this.total.get(), byFrame, events);
+    }
+
+    @PreDestroy
+    void stop() {
+        this.stream.close();
+    }
+
+    /**
+     * Record PinnedEvent com um evento de pinning.
+     *
+     * parametro started_at Instante em que a virtual thread ficou presa.
+     * parametro duration_ms Quanto tempo ela ficou presa.
+     * parametro thread Nome da virtual thread.
+     * parametro application_frame Primeiro frame do Planner na pilha.
+     * parametro stack A pilha completa.
+     */
+    public record PinnedEvent(Instant started_at, long duration_ms, String thread, String application_frame, List<String> stack) {
+    }
+
+    /**
+     * Record PinningReport com o resumo exposto pelo endpoint.
+     *
+     * parametro threshold_ms Duração mínima para um evento ser registrado.
+     * parametro total Total de eventos registrados.
+     * parametro by_application_frame Total de eventos por frame da aplicação.
+     * parametro recent Os eventos mais recentes.
+     */
+    public record PinningReport(long threshold_ms, long total, Map<String, Long> by_application_frame, List<PinnedEvent> recent) {
+    }
+}
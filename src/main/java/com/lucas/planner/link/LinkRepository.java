@@ -1,11 +1,39 @@
 package com.lucas.planner.link;
 
+import com.lucas.planner.transfer.TransferLink;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface LinkRepository extends JpaRepository<Link, UUID> {
 
     public List<Link> findByTripId(UUID tripId);
+
+    // Leituras que projetam direto em LinkData, sem hidratar entidades nem carregar a viagem
+    @Query("select new com.lucas.planner.link.LinkData(l.id, l.title, l.url) from Link l where l.trip.id = :tripId")
+    public List<LinkData> findDataByTripId(@Param("tripId") UUID tripId);
+
+    // Paginação keyset ordenada por id, servida pelo índice (trip_id, id)
+    @Query("select new com.lucas.planner.link.LinkData(l.id, l.title, l.url) from Link l where l.trip.id = :tripId order by l.id")
+    public List<LinkData> findDataPageByTripId(@Param("tripId") UUID tripId, Limit limit);
+
+    @Query("select new com.lucas.planner.link.LinkData(l.id, l.title, l.url) from Link l where l.trip.id = :tripId and l.id > :afterId order by l.id")
+    public List<LinkData> findDataPageByTripIdAfter(@Param("tripId") UUID tripId, @Param("afterId") UUID afterId, Limit limit);
+
+    // Leituras em fluxo para a exportação NDJSON, em blocos de 1000 linhas e na ordem do índice (trip_id, id)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lucas.planner.transfer.TransferLink(l.trip.id, l.id, l.title, l.url) from Link l where l.trip.id = :tripId order by l.id")
+    public Stream<TransferLink> streamTransferByTripId(@Param("tripId") UUID tripId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lucas.planner.transfer.TransferLink(l.trip.id, l.id, l.title, l.url) from Link l order by l.trip.id, l.id")
+    public Stream<TransferLink> streamAllTransfer();
 }
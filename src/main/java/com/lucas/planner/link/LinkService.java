@@ -1,21 +1,34 @@
 package com.lucas.planner.link;
 
-import com.lucas.planner.activity.ActivityData;
+import com.lucas.planner.pagination.CursorPage;
+import com.lucas.planner.pagination.Cursors;
+import com.lucas.planner.stats.TripStatsService;
 import com.lucas.planner.trip.Trip;
+import com.lucas.planner.trip.TripChangedEvent;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 @Service
+@Timed("planner.service")
 public class LinkService {
 
     // Injeção de dependência do repositório de links
     @Autowired
     private LinkRepository linkRepository;
 
+    @Autowired
+    private TripStatsService tripStatsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Registra um novo link com base nos dados fornecidos no payload e na viagem associada.
      *
@@ -23,6 +36,7 @@ public class LinkService {
      * parametro trip A viagem à qual o link está associado.
      * returna A resposta contendo o identificador do novo link.
      */
+    @Transactional
     public LinkResponse registerLink(LinkRequestPayload payload, Trip trip) {
         // Cria uma nova instância de Link com os dados do payload e da trip
         Link newLink = new Link(payload.title(), payload.url(), trip);
@@ -30,6 +44,12 @@ public class LinkService {
         // Salva o novo link no banco de dados
         this.linkRepository.save(newLink);
 
+        // Contador de links da viagem, gravado na mesma transação
+        this.tripStatsService.recordLink(trip.getId());
+
+        // Avisa os inscritos no feed de eventos da viagem
+        this.eventPublisher.publishEvent(new TripChangedEvent(trip.getId(), TripChangedEvent.LINK_CREATED, newLink.getId()));
+
         // Retorna a resposta contendo o ID do novo link
         return new LinkResponse(newLink.getId());
     }
@@ -40,10 +60,29 @@ public class LinkService {
      * parametro tripId O UUID da viagem para a qual os links serão recuperados.
      * returna Uma lista de LinkData contendo os dados dos links.
      */
+    @Transactional(readOnly = true)
     public List<LinkData> getAllLinksFromId(UUID tripId) {
-        // Busca os links pelo tripId e mapeia para LinkData
-        return this.linkRepository.findByTripId(tripId).stream()
-                .map(link -> new LinkData(link.getId(), link.getTitle(), link.getUrl()))
-                .toList();
+        // Busca os links pelo tripId já projetados em LinkData
+        return this.linkRepository.findDataByTripId(tripId);
+    }
+
+    /**
+     * Obtém uma página dos links de uma viagem, ordenados por id.
+     *
+     * parametro tripId O UUID da viagem para a qual os links serão recuperados.
+     * parametro cursor O cursor devolvido pela página anterior, ou nulo para a primeira página.
+     * parametro limit O tamanho da página.
+     * returna A página de LinkData e o cursor da próxima página.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<LinkData> getLinksPageFromId(UUID tripId, String cursor, int limit) {
+        // Busca uma linha a mais para saber se existe próxima página
+        Limit fetch = Limit.of(limit + 1);
+
+        List<LinkData> rows = cursor == null
+                ? this.linkRepository.findDataPageByTripId(tripId, fetch)
+                : this.linkRepository.findDataPageByTripIdAfter(tripId, Cursors.decode(cursor, 1, keys -> UUID.fromString(keys.get(0))), fetch);
+
+        return Cursors.page(rows, limit, link -> Cursors.encode(link.id()));
     }
 }
@@ -0,0 +1,172 @@
+package com.lucas.planner.mail;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Despacha os emails da fila de saída (tabela email_outbox) fora da thread da requisição.
+ * As mensagens devidas são agrupadas por viagem e cada lote é enviado em um executor próprio do despachante
+ * (virtual threads quando spring.threads.virtual.enabled=true, senão um pool fixo com uma thread por lote simultâneo);
+ * um semáforo limita quantos lotes ficam em envio ao mesmo tempo, então as tarefas nunca esperam em fila.
+ * Cada leitura reserva as mensagens com um token próprio e só envia as que ela de fato reservou, então leituras
+ * simultâneas (de outra instância ou de um agendamento atrasado) não enviam a mesma mensagem duas vezes.
+ * Uma reserva que passa de planner.mail.claim-timeout, de um despachante encerrado no meio do envio ou cujo estado
+ * não pôde ser gravado depois dele, volta para a fila; o prazo precisa cobrir o envio de um lote, ou a mensagem
+ * pode ser enviada de novo enquanto o primeiro envio ainda está em andamento.
+ */
+@Component
+public class EmailDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private MailSink mailSink;
+
+    @Value("${planner.mail.batch-size}")
+    private int batchSize;
+
+    @Value("${planner.mail.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${planner.mail.initial-backoff}")
+    private Duration initialBackoff;
+
+    @Value("${planner.mail.max-backoff}")
+    private Duration maxBackoff;
+
+    @Value("${planner.mail.claim-timeout}")
+    private Duration claimTimeout;
+
+    private final ExecutorService executor;
+
+    private final Semaphore inFlight;
+
+    public EmailDispatcher(@Value("${planner.mail.max-concurrent-batches}") int maxConcurrentBatches,
+                           @Value("${spring.threads.virtual.enabled}") boolean virtualThreads) {
+        this.inFlight = new Semaphore(maxConcurrentBatches);
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mail-", 0).factory())
+                : Executors.newFixedThreadPool(maxConcurrentBatches, Thread.ofPlatform().name("mail-", 0).daemon().factory());
+    }
+
+    /**
+     * Devolve as reservas vencidas para a fila, busca as mensagens devidas, reserva-as e agenda o envio de um lote por viagem.
+     * Bloqueia enquanto o limite de lotes simultâneos estiver atingido, o que segura a leitura da fila.
+     * A primeira leitura também espera um intervalo, para que um intervalo longo mantenha o despachante de fato parado.
+     */
+    @Scheduled(fixedDelayString = "${planner.mail.poll-interval}", initialDelayString = "${planner.mail.poll-interval}")
+    public void dispatchPending() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+
+        int released = this.emailOutboxRepository.releaseStaleClaims(now.minus(this.claimTimeout));
+        if (released > 0) {
+            log.warn("{} emails com a reserva vencida voltaram para a fila", released);
+        }
+
+        List<EmailOutbox> due = this.emailOutboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(
+                EmailStatus.PENDING, now, Limit.of(this.batchSize));
+
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // Reserva as mensagens para que a próxima leitura não as pegue novamente; as que outra leitura reservou
+        // entre a busca e a reserva ficam de fora, então só as relidas pelo token desta leitura são enviadas
+        UUID claimToken = UUID.randomUUID();
+        if (this.emailOutboxRepository.claim(due.stream().map(EmailOutbox::getId).toList(), claimToken, now) == 0) {
+            return;
+        }
+        List<EmailOutbox> claimed = this.emailOutboxRepository.findByClaimTokenAndStatus(claimToken, EmailStatus.SENDING);
+
+        Map<UUID, List<EmailOutbox>> byTrip = claimed.stream().collect(Collectors.groupingBy(EmailOutbox::getTripId));
+
+        for (Map.Entry<UUID, List<EmailOutbox>> batch : byTrip.entrySet()) {
+            this.inFlight.acquire();
+            this.executor.execute(() -> {
+                try {
+                    this.sendBatch(batch.getKey(), batch.getValue(), claimToken);
+                } finally {
+                    this.inFlight.release();
+                }
+            });
+        }
+    }
+
+    private void sendBatch(UUID tripId, List<EmailOutbox> batch, UUID claimToken) {
+        List<EmailMessage> messages = batch.stream().map(email -> toMessage(tripId, email)).toList();
+        List<UUID> ids = batch.stream().map(EmailOutbox::getId).toList();
+
+        try {
+            this.mailSink.send(tripId, messages);
+        } catch (Exception e) {
+            this.retryLater(tripId, batch, claimToken, e);
+            return;
+        }
+
+        try {
+            this.emailOutboxRepository.complete(ids, claimToken, EmailStatus.SENT);
+        } catch (RuntimeException e) {
+            // Enviadas, mas ainda reservadas: voltam para a fila quando a reserva vencer e serão enviadas de novo
+            log.error("{} emails da viagem {} foram enviados, mas o envio não foi gravado; voltam para a fila após {}", ids.size(), tripId, this.claimTimeout, e);
+        }
+    }
+
+    private void retryLater(UUID tripId, List<EmailOutbox> batch, UUID claimToken, Exception failure) {
+        // Todas as mensagens de um lote compartilham o número de tentativas, pois são sempre enviadas juntas
+        int attempts = batch.stream().mapToInt(EmailOutbox::getAttempts).max().orElse(0) + 1;
+        List<UUID> ids = batch.stream().map(EmailOutbox::getId).toList();
+
+        try {
+            if (attempts >= this.maxAttempts) {
+                log.error("Desistindo de {} emails da viagem {} após {} tentativas", ids.size(), tripId, attempts, failure);
+                this.emailOutboxRepository.reschedule(ids, claimToken, EmailStatus.FAILED, LocalDateTime.now());
+            } else {
+                log.warn("Falha ao enviar {} emails da viagem {} (tentativa {})", ids.size(), tripId, attempts, failure);
+                this.emailOutboxRepository.reschedule(ids, claimToken, EmailStatus.PENDING, LocalDateTime.now().plus(this.backoff(attempts)));
+            }
+        } catch (RuntimeException e) {
+            // Sem o reagendamento, a reserva vence e as mensagens voltam para a fila sem contar esta tentativa
+            log.error("Falha ao reagendar {} emails da viagem {}; voltam para a fila após {}", ids.size(), tripId, this.claimTimeout, e);
+        }
+    }
+
+    /**
+     * Backoff exponencial: initialBackoff * 2^(attempts - 1), limitado a maxBackoff.
+     */
+    private Duration backoff(int attempts) {
+        Duration delay = this.initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(this.maxBackoff) > 0 ? this.maxBackoff : delay;
+    }
+
+    private static EmailMessage toMessage(UUID tripId, EmailOutbox email) {
+        return new EmailMessage(
+                email.getRecipient(),
+                "Confirmação de viagem",
+                "Você foi convidado para a viagem " + tripId + ". Confirme a sua presença no Planner."
+        );
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.executor.shutdown();
+    }
+}
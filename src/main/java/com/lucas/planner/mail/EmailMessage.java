@@ -0,0 +1,11 @@
+package com.lucas.planner.mail;
+
+/**
+ * Record EmailMessage para encapsular um email pronto para envio.
+ *
+ * parametro to O email do destinatário.
+ * parametro subject O assunto do email.
+ * parametro body O corpo do email.
+ */
+public record EmailMessage(String to, String subject, String body) {
+}
@@ -0,0 +1,64 @@
+package com.lucas.planner.mail;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "email_outbox")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "trip_id", nullable = false)
+    private UUID tripId;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EmailStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Token da leitura do despachante que reservou a mensagem, e quando; a reserva vence depois de planner.mail.claim-timeout
+    @Column(name = "claim_token")
+    private UUID claimToken;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    /**
+     * Construtor personalizado para enfileirar um email de confirmação para um destinatário de uma viagem.
+     *
+     * parametro tripId O UUID da viagem.
+     * parametro recipient O email do destinatário.
+     */
+    public EmailOutbox(UUID tripId, String recipient) {
+        this.tripId = tripId;
+        this.recipient = recipient;
+        this.status = EmailStatus.PENDING;
+        this.attempts = 0;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
@@ -0,0 +1,104 @@
+package com.lucas.planner.mail;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, UUID> {
+
+    /**
+     * Enfileira, em um único INSERT ... SELECT, um email para cada participante da viagem.
+     *
+     * parametro tripId O UUID da viagem.
+     * returna A quantidade de mensagens enfileiradas.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO email_outbox (trip_id, recipient, status, attempts, next_attempt_at, created_at)
+            SELECT trip_id, email, 'PENDING', 0, LOCALTIMESTAMP, LOCALTIMESTAMP FROM participants WHERE trip_id = :tripId
+            """)
+    int enqueueForTrip(@Param("tripId") UUID tripId);
+
+    /**
+     * Enfileira um email para o destinatário somente se a viagem estiver confirmada.
+     * A condição fica no próprio INSERT ... SELECT, sem carregar a viagem antes.
+     *
+     * parametro tripId O UUID da viagem.
+     * parametro recipient O email do destinatário.
+     * returna 1 se a mensagem foi enfileirada, 0 se a viagem não está confirmada.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO email_outbox (trip_id, recipient, status, attempts, next_attempt_at, created_at)
+            SELECT id, :recipient, 'PENDING', 0, LOCALTIMESTAMP, LOCALTIMESTAMP FROM trips WHERE id = :tripId AND is_confirmed = TRUE
+            """)
+    int enqueueIfTripConfirmed(@Param("tripId") UUID tripId, @Param("recipient") String recipient);
+
+    List<EmailOutbox> findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(EmailStatus status, LocalDateTime now, Limit limit);
+
+    /**
+     * Reserva as mensagens ainda pendentes para uma leitura do despachante. Mensagens já reservadas por outra leitura
+     * (de outro despachante ou de uma execução simultânea) ficam de fora, então cada mensagem tem uma única reserva.
+     *
+     * parametro ids Os UUIDs das mensagens lidas como devidas.
+     * parametro claimToken O token da leitura, usado para reler as mensagens reservadas por ela.
+     * parametro claimedAt O instante da reserva.
+     * returna A quantidade de mensagens de fato reservadas.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailOutbox e set e.status = com.lucas.planner.mail.EmailStatus.SENDING, e.claimToken = :claimToken, e.claimedAt = :claimedAt
+            where e.id in :ids and e.status = com.lucas.planner.mail.EmailStatus.PENDING
+            """)
+    int claim(@Param("ids") Collection<UUID> ids, @Param("claimToken") UUID claimToken, @Param("claimedAt") LocalDateTime claimedAt);
+
+    List<EmailOutbox> findByClaimTokenAndStatus(UUID claimToken, EmailStatus status);
+
+    /**
+     * Muda o estado das mensagens ainda reservadas pela leitura; as que perderam a reserva não são alteradas.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailOutbox e set e.status = :to
+            where e.id in :ids and e.claimToken = :claimToken and e.status = com.lucas.planner.mail.EmailStatus.SENDING
+            """)
+    int complete(@Param("ids") Collection<UUID> ids, @Param("claimToken") UUID claimToken, @Param("to") EmailStatus to);
+
+    /**
+     * Devolve à fila as mensagens com reservas vencidas: de um despachante encerrado no meio de um envio
+     * ou cujo estado não pôde ser gravado depois do envio.
+     *
+     * parametro claimedBefore As reservas anteriores a este instante estão vencidas.
+     * returna A quantidade de mensagens devolvidas à fila.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailOutbox e set e.status = com.lucas.planner.mail.EmailStatus.PENDING
+            where e.status = com.lucas.planner.mail.EmailStatus.SENDING and e.claimedAt < :claimedBefore
+            """)
+    int releaseStaleClaims(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+    /**
+     * Reagenda as mensagens ainda reservadas pela leitura e conta uma tentativa; as que perderam a reserva não são alteradas.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update EmailOutbox e set e.status = :status, e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt
+            where e.id in :ids and e.claimToken = :claimToken and e.status = com.lucas.planner.mail.EmailStatus.SENDING
+            """)
+    int reschedule(@Param("ids") Collection<UUID> ids, @Param("claimToken") UUID claimToken, @Param("status") EmailStatus status, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+}
@@ -0,0 +1,15 @@
+package com.lucas.planner.mail;
+
+/**
+ * Estados de uma mensagem na fila de saída de emails.
+ */
+public enum EmailStatus {
+    // Aguardando envio (ou nova tentativa)
+    PENDING,
+    // Reservada por um despachante e em envio
+    SENDING,
+    // Enviada com sucesso
+    SENT,
+    // Esgotou as tentativas de envio
+    FAILED
+}
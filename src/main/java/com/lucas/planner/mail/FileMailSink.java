@@ -0,0 +1,48 @@
+package com.lucas.planner.mail;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementação local de MailSink que grava cada lote em um arquivo, sem depender de rede.
+ * Útil para desenvolvimento e testes de carga.
+ */
+@Component
+@ConditionalOnProperty(name = "planner.mail.sink", havingValue = "file", matchIfMissing = true)
+public class FileMailSink implements MailSink {
+
+    private final Path directory;
+
+    public FileMailSink(@Value("${planner.mail.file-sink.directory}") Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public void send(UUID tripId, List<EmailMessage> messages) throws IOException {
+        // Um arquivo por lote, nomeado pela viagem e pelo instante do envio
+        Path file = this.directory.resolve(tripId + "-" + System.nanoTime() + ".eml");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (EmailMessage message : messages) {
+                writer.write("To: " + message.to());
+                writer.newLine();
+                writer.write("Subject: " + message.subject());
+                writer.newLine();
+                writer.newLine();
+                writer.write(message.body());
+                writer.newLine();
+                writer.write(".");
+                writer.newLine();
+            }
+        }
+    }
+}
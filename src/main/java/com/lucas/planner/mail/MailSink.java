@@ -0,0 +1,19 @@
+package com.lucas.planner.mail;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Destino de envio dos emails. Cada chamada recebe o lote de mensagens de uma única viagem,
+ * permitindo que a implementação reaproveite uma mesma conexão para todo o lote.
+ */
+public interface MailSink {
+
+    /**
+     * Envia um lote de mensagens de uma viagem. Qualquer exceção faz o lote inteiro ser reagendado.
+     *
+     * parametro tripId O UUID da viagem à qual as mensagens pertencem.
+     * parametro messages As mensagens a serem enviadas.
+     */
+    void send(UUID tripId, List<EmailMessage> messages) throws Exception;
+}
@@ -0,0 +1,12 @@
+package com.lucas.planner.pagination;
+
+import java.util.List;
+
+/**
+ * Record CursorPage para encapsular uma página de resultados paginados por cursor (keyset).
+ *
+ * parametro items Os itens da página.
+ * parametro next_cursor Cursor opaco para buscar a próxima página, ou nulo se esta for a última.
+ */
+public record CursorPage<T>(List<T> items, String next_cursor) {
+}
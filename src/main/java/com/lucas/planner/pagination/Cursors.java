@@ -0,0 +1,88 @@
+package com.lucas.planner.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Utilitário para codificar e decodificar cursores opacos de paginação keyset.
+ * Um cursor guarda os valores da chave de ordenação do último item entregue, codificados em base64 url-safe.
+ */
+public final class Cursors {
+
+    // Limite máximo de itens por página aceito nas listagens paginadas
+    public static final int MAX_LIMIT = 500;
+
+    private static final String SEPARATOR = "|";
+
+    private Cursors() {
+    }
+
+    /**
+     * Codifica os valores da chave de ordenação em um cursor opaco.
+     *
+     * parametro keys Os valores da chave, na ordem da ordenação.
+     * returna O cursor codificado.
+     */
+    public static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(keys[i]);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um cursor e converte seus valores com a função informada.
+     *
+     * parametro cursor O cursor recebido do cliente.
+     * parametro parts Quantidade de valores esperados no cursor.
+     * parametro mapper Função que converte os valores decodificados no tipo da chave.
+     * returna A chave decodificada.
+     * lança InvalidCursorException se o cursor estiver malformado.
+     */
+    public static <T> T decode(String cursor, int parts, Function<List<String>, T> mapper) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            List<String> keys = List.of(raw.split("\\" + SEPARATOR, -1));
+
+            if (keys.size() != parts) {
+                throw new IllegalArgumentException("Quantidade de valores inesperada");
+            }
+
+            return mapper.apply(keys);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(cursor, e);
+        }
+    }
+
+    /**
+     * Restringe o tamanho de página pedido pelo cliente ao intervalo [1, MAX_LIMIT].
+     */
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Monta a página a partir de uma consulta que buscou limit + 1 linhas: a linha extra só indica que há próxima página.
+     *
+     * parametro rows As linhas retornadas pela consulta.
+     * parametro limit O tamanho da página.
+     * parametro cursorOf Função que gera o cursor a partir do último item da página.
+     * returna A página de resultados.
+     */
+    public static <T> CursorPage<T> page(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+}
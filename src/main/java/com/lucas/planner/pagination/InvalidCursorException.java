@@ -0,0 +1,15 @@
+package com.lucas.planner.pagination;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Lançada quando o cursor recebido pelo cliente não pode ser decodificado; respondida com 400.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor, Throwable cause) {
+        super("Cursor inválido: " + cursor, cause);
+    }
+}
@@ -28,9 +28,9 @@ public class Participant {
     private String name;
 
     @Column(nullable = false)
-    private String Email;
+    private String email;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "trip_id", nullable = false)
     private Trip trip;
 
@@ -42,7 +42,7 @@ public class Participant {
      * parametro trip A viagem associada ao participante.
      */
     public Participant(String email, Trip trip) {
-        this.Email = email;
+        this.email = email;
         this.trip = trip;
         this.isConfirmed = false;
         this.name = "";
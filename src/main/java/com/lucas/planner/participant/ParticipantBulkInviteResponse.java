@@ -0,0 +1,11 @@
+package com.lucas.planner.participant;
+
+/**
+ * Record ParticipantBulkInviteResponse para encapsular o resultado de um convite em massa.
+ *
+ * parametro received Quantidade de emails recebidos na requisição.
+ * parametro invited Quantidade de participantes efetivamente criados.
+ * parametro skipped Quantidade de emails ignorados por já estarem na viagem ou repetidos na requisição.
+ */
+public record ParticipantBulkInviteResponse(int received, int invited, int skipped) {
+}
@@ -0,0 +1,10 @@
+package com.lucas.planner.participant;
+
+/**
+ * Resultado de uma confirmação de presença: o participante e se a confirmação alterou a linha.
+ *
+ * parametro participant Os dados do participante depois da confirmação.
+ * parametro changed Falso quando o participante já estava confirmado com o mesmo nome.
+ */
+public record ParticipantConfirmation(ParticipantData participant, boolean changed) {
+}
@@ -1,5 +1,6 @@
 package com.lucas.planner.participant;
 
+import com.lucas.planner.trip.TripService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,32 +19,41 @@ public class ParticipantController {
     @Autowired
     private ParticipantRepository participantRepository;
 
+    @Autowired
+    private ParticipantService participantService;
+
+    @Autowired
+    private TripService tripService;
+
     /**
      * Endpoint para confirmar a participação de um participante.
+     * A confirmação em si é o mesmo UPDATE condicional do RSVP, que também mantém o contador de confirmados da viagem.
      *
      * parametro id O UUID do participante a ser confirmado.
      * parametro payload Dados da solicitação, incluindo o nome do participante.
-     * returna Resposta HTTP contendo o participante atualizado, ou um código de status 404 se não encontrado.
+     * returna Resposta HTTP contendo os dados do participante atualizado, ou um código de status 404 se não encontrado.
      */
     @PostMapping("/{id}/confirm")
-    public ResponseEntity<Participant> confirmParticipant(@PathVariable UUID id, @RequestBody ParticipantRequestPayload payload) {
+    public ResponseEntity<ParticipantData> confirmParticipant(@PathVariable UUID id, @RequestBody ParticipantRequestPayload payload) {
         // Busca o participante pelo ID
         Optional<Participant> participant = this.participantRepository.findById(id);
 
         // Se o participante for encontrado
         if (participant.isPresent()) {
-            // Obtém o participante
+            // Obtém o participante; a viagem, carregada sob demanda, só tem o id lido
             Participant rawParticipant = participant.get();
+            UUID tripId = rawParticipant.getTrip().getId();
 
-            // Atualiza o status de confirmação e o nome
-            rawParticipant.setIsConfirmed(true);
-            rawParticipant.setName(payload.name());
+            // Confirma pela chave (viagem, email) e atualiza o nome
+            Optional<ParticipantConfirmation> confirmation = this.participantService.confirmParticipant(tripId, rawParticipant.getEmail(), payload.name());
 
-            // Salva as alterações no banco de dados
-            this.participantRepository.save(rawParticipant);
+            // Invalida a viagem no cache, se algo mudou; a revisão, base da ETag das leituras, já contou a confirmação ou a troca de nome
+            if (confirmation.map(ParticipantConfirmation::changed).orElse(false)) {
+                this.tripService.touch(tripId);
+            }
 
-            // Retorna o participante atualizado com status 200 OK
-            return ResponseEntity.ok(rawParticipant);
+            // Retorna os dados do participante atualizado com status 200 OK
+            return confirmation.map(result -> ResponseEntity.ok(result.participant())).orElseGet(() -> ResponseEntity.notFound().build());
         }
 
         // Se o participante não for encontrado, retorna status 404 Not Found
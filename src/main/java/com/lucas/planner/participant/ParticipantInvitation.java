@@ -0,0 +1,12 @@
+package com.lucas.planner.participant;
+
+import java.util.UUID;
+
+/**
+ * Resultado de um convite: o participante e se ele foi criado agora ou já existia na viagem.
+ *
+ * parametro id O UUID do participante.
+ * parametro created Verdadeiro se o convite inseriu o participante.
+ */
+public record ParticipantInvitation(UUID id, boolean created) {
+}
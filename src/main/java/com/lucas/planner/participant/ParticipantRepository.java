@@ -1,12 +1,79 @@
 package com.lucas.planner.participant;
 
+import com.lucas.planner.transfer.TransferParticipant;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface ParticipantRepository extends JpaRepository<Participant, UUID> {
 
     List<Participant> findByTripId(UUID tripId);
 
+    // Leituras que projetam direto em ParticipantData, sem hidratar entidades nem carregar a viagem
+    @Query("select new com.lucas.planner.participant.ParticipantData(p.id, p.name, p.email, p.isConfirmed) from Participant p where p.trip.id = :tripId")
+    List<ParticipantData> findDataByTripId(@Param("tripId") UUID tripId);
+
+    // Paginação keyset ordenada por id, servida pelo índice (trip_id, id)
+    @Query("select new com.lucas.planner.participant.ParticipantData(p.id, p.name, p.email, p.isConfirmed) from Participant p where p.trip.id = :tripId order by p.id")
+    List<ParticipantData> findDataPageByTripId(@Param("tripId") UUID tripId, Limit limit);
+
+    @Query("select new com.lucas.planner.participant.ParticipantData(p.id, p.name, p.email, p.isConfirmed) from Participant p where p.trip.id = :tripId and p.id > :afterId order by p.id")
+    List<ParticipantData> findDataPageByTripIdAfter(@Param("tripId") UUID tripId, @Param("afterId") UUID afterId, Limit limit);
+
+    // Buscas pela restrição única (trip_id, email)
+    @Query("select p.id from Participant p where p.trip.id = :tripId and p.email = :email")
+    Optional<UUID> findIdByTripIdAndEmail(@Param("tripId") UUID tripId, @Param("email") String email);
+
+    @Query("select new com.lucas.planner.participant.ParticipantData(p.id, p.name, p.email, p.isConfirmed) from Participant p where p.trip.id = :tripId and p.email = :email")
+    Optional<ParticipantData> findDataByTripIdAndEmail(@Param("tripId") UUID tripId, @Param("email") String email);
+
+    // Convite idempotente: insere só se o email ainda não participa da viagem; retorna 1 se inseriu e 0 se já existia
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            MERGE INTO participants p
+            USING (VALUES (CAST(:id AS UUID), CAST(:email AS VARCHAR(255)), CAST(:tripId AS UUID))) s(id, email, trip_id)
+            ON p.trip_id = s.trip_id AND p.email = s.email
+            WHEN NOT MATCHED THEN INSERT (id, name, email, is_confirmed, trip_id) VALUES (s.id, '', s.email, FALSE, s.trip_id)""")
+    int insertIfAbsent(@Param("id") UUID id, @Param("tripId") UUID tripId, @Param("email") String email);
+
+    // Confirmação em uma única instrução condicional: só linhas ainda não confirmadas são regravadas, então repetições
+    // da mesma confirmação retornam 0 e não disputam o lock da linha à toa, e o retorno diz se houve uma nova confirmação.
+    // Nome nulo mantém o atual
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE participants SET is_confirmed = TRUE, name = COALESCE(:name, name)
+            WHERE trip_id = :tripId AND email = :email AND is_confirmed = FALSE""")
+    int confirmByTripIdAndEmail(@Param("tripId") UUID tripId, @Param("email") String email, @Param("name") String name);
+
+    // Troca o nome de um participante já confirmado, se for diferente
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE participants SET name = :name
+            WHERE trip_id = :tripId AND email = :email AND is_confirmed = TRUE AND name <> :name""")
+    int renameConfirmedByTripIdAndEmail(@Param("tripId") UUID tripId, @Param("email") String email, @Param("name") String name);
+
+    // Leituras em fluxo para a exportação NDJSON: o cursor é percorrido em blocos de 1000 linhas, sem materializar a lista,
+    // e a ordem por (trip_id, id) segue o índice, permitindo casar os participantes com as viagens em uma única passada
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lucas.planner.transfer.TransferParticipant(p.trip.id, p.id, p.name, p.email, p.isConfirmed) from Participant p where p.trip.id = :tripId order by p.id")
+    Stream<TransferParticipant> streamTransferByTripId(@Param("tripId") UUID tripId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lucas.planner.transfer.TransferParticipant(p.trip.id, p.id, p.name, p.email, p.isConfirmed) from Participant p order by p.trip.id, p.id")
+    Stream<TransferParticipant> streamAllTransfer();
+
 }
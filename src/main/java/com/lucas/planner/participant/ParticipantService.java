@@ -1,77 +1,294 @@
 package com.lucas.planner.participant;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.lucas.planner.mail.EmailOutboxRepository;
+import com.lucas.planner.pagination.CursorPage;
+import com.lucas.planner.pagination.Cursors;
+import com.lucas.planner.stats.TripStatsService;
 import com.lucas.planner.trip.Trip;
+import com.lucas.planner.trip.TripChangedEvent;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Serviço responsável pela lógica de negócios relacionada a participantes.
  */
 @Service
+@Timed("planner.service")
 public class ParticipantService {
 
     // Injeção de dependência do repositório de participantes
     @Autowired
     private ParticipantRepository participantRepository;
 
+    // Fila de saída de emails, consumida de forma assíncrona pelo EmailDispatcher
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    // Usado pelo convite em massa para inserir em lotes JDBC reais, sem passar pelo contexto de persistência
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TripStatsService tripStatsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${planner.participants.bulk-invite.batch-size}")
+    private int bulkInviteBatchSize;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    // Transação do convite individual: se um convite simultâneo vencer a corrida, ela é desfeita inteira, contador incluído
+    private final TransactionTemplate transactionTemplate;
+
+    public ParticipantService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Normaliza um email para a chave única (trip_id, email): sem espaços nas pontas e em minúsculas.
+     * Todos os caminhos que convidam ou confirmam participantes passam por aqui, para que "Ana@x.com " e "ana@x.com"
+     * sejam o mesmo convidado.
+     *
+     * parametro email O email informado pelo cliente, ou nulo.
+     * returna O email normalizado, ou nulo.
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.strip().toLowerCase(Locale.ROOT);
+    }
+
     /**
      * Registra uma lista de participantes para uma viagem.
      *
      * parametro participantsToInvite Lista de emails dos participantes a serem convidados.
      * parametro trip A viagem à qual os participantes serão associados.
      */
+    @Transactional
     public void registerParticipantsToTrip(List<String> participantsToInvite, Trip trip) {
-        // Cria uma lista de participantes a partir dos emails fornecidos e da viagem
+        // Cria uma lista de participantes a partir dos emails fornecidos e da viagem; repetições contariam como convites duplicados
         List<Participant> participants = participantsToInvite.stream()
+                .map(ParticipantService::normalizeEmail)
+                .distinct()
                 .map(email -> new Participant(email, trip))
                 .toList();
 
-        // Salva todos os participantes no banco de dados
+        // Salva todos os participantes no banco de dados (em lotes, conforme hibernate.jdbc.batch_size)
         this.participantRepository.saveAll(participants);
 
-        // Imprime o ID do primeiro participante (para fins de depuração)
-        System.out.println(participants.get(0).getId());
+        this.tripStatsService.recordParticipants(trip.getId(), participants.size());
+    }
+
+    /**
+     * Convida para uma viagem os emails lidos incrementalmente de um array JSON.
+     * Os emails são normalizados e inseridos em lotes JDBC de MERGE, que descartam pela chave única (trip_id, email)
+     * tanto os que já participam da viagem quanto os repetidos na requisição ou convidados em paralelo,
+     * sem carregar os emails existentes em memória.
+     * A importação é tudo ou nada: um corpo inválido no meio, inclusive um JSON truncado (IOException),
+     * desfaz os lotes e os emails de confirmação já gravados.
+     *
+     * parametro trip A viagem à qual os participantes serão associados.
+     * parametro emails Corpo da requisição contendo um array JSON de emails.
+     * returna O resumo de quantos emails foram recebidos, convidados e ignorados.
+     * lança IllegalArgumentException se o corpo não for um array JSON de emails não vazios.
+     * lança IOException se o corpo não for JSON válido ou não puder ser lido.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public ParticipantBulkInviteResponse bulkInviteParticipants(Trip trip, InputStream emails) throws IOException {
+        List<String> batch = new ArrayList<>(this.bulkInviteBatchSize);
+        int received = 0;
+        int invited = 0;
+
+        try (JsonParser parser = this.jsonFactory.createParser(emails)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("O corpo deve ser um array JSON de emails");
+            }
+
+            while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                received++;
+                String email = normalizeEmail(parser.getText());
+
+                if (email.isEmpty()) {
+                    throw new IllegalArgumentException("O array não pode conter emails vazios");
+                }
+                batch.add(email);
+
+                if (batch.size() == this.bulkInviteBatchSize) {
+                    invited += this.insertInviteBatch(batch, trip);
+                    batch.clear();
+                }
+            }
+
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("O array deve conter apenas emails");
+            }
+        }
+
+        invited += this.insertInviteBatch(batch, trip);
+
+        this.tripStatsService.recordParticipants(trip.getId(), invited);
+
+        // Um único evento para o lote inteiro; publicado depois do commit desta transação
+        if (invited > 0) {
+            this.eventPublisher.publishEvent(new TripChangedEvent(trip.getId(), TripChangedEvent.PARTICIPANTS_INVITED, null));
+        }
+
+        return new ParticipantBulkInviteResponse(received, invited, received - invited);
+    }
+
+    private int insertInviteBatch(List<String> emails, Trip trip) {
+        if (emails.isEmpty()) {
+            return 0;
+        }
+
+        int[][] counts = this.jdbcTemplate.batchUpdate(
+                "MERGE INTO participants p USING (VALUES (CAST(? AS UUID), CAST(? AS VARCHAR(255)), CAST(? AS UUID))) s(id, email, trip_id) "
+                        + "ON p.trip_id = s.trip_id AND p.email = s.email "
+                        + "WHEN NOT MATCHED THEN INSERT (id, name, email, is_confirmed, trip_id) VALUES (s.id, '', s.email, FALSE, s.trip_id)",
+                emails, emails.size(), (statement, email) -> {
+                    statement.setObject(1, UUID.randomUUID());
+                    statement.setString(2, email);
+                    statement.setObject(3, trip.getId());
+                });
+
+        // O lote é enviado inteiro de uma vez, então as contagens seguem a ordem dos emails;
+        // 0 é um email que já participava, repetido antes na requisição ou convidado em paralelo
+        List<String> inserted = new ArrayList<>(emails.size());
+        for (int i = 0; i < emails.size(); i++) {
+            if (counts[0][i] > 0) {
+                inserted.add(emails.get(i));
+            }
+        }
+
+        // Em uma viagem já confirmada os novos participantes também recebem o email de confirmação
+        if (trip.getIsConfirmed() && !inserted.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(
+                    "INSERT INTO email_outbox (trip_id, recipient, status, attempts, next_attempt_at, created_at) VALUES (?, ?, 'PENDING', 0, LOCALTIMESTAMP, LOCALTIMESTAMP)",
+                    inserted, inserted.size(), (statement, email) -> {
+                        statement.setObject(1, trip.getId());
+                        statement.setString(2, email);
+                    });
+        }
+
+        return inserted.size();
     }
 
     /**
-     * Registra um novo participante para uma viagem.
+     * Registra um novo participante para uma viagem. O convite é idempotente: convidar de novo um email
+     * que já participa da viagem, inclusive em requisições simultâneas, devolve o participante existente.
      *
-     * parametro email O email do novo participante.
+     * parametro rawEmail O email do novo participante, normalizado antes do convite.
      * parametro trip A viagem à qual o participante será associado.
-     * returna A resposta contendo o identificador do novo participante.
+     * returna O identificador do participante e se ele foi criado por este convite.
+     */
+    public ParticipantInvitation registerParticipantToTrip(String rawEmail, Trip trip) {
+        String email = normalizeEmail(rawEmail);
+        UUID id = UUID.randomUUID();
+
+        int inserted;
+        try {
+            inserted = this.transactionTemplate.execute(status -> {
+                // Insere o participante apenas se o email ainda não participa da viagem
+                int rows = this.participantRepository.insertIfAbsent(id, trip.getId(), email);
+                this.tripStatsService.recordParticipants(trip.getId(), rows);
+                return rows;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Um convite simultâneo do mesmo email inseriu primeiro; violações de chave estrangeira (viagem inexistente) sobem
+            if (!(e.getCause() instanceof ConstraintViolationException violation) || violation.getKind() != ConstraintViolationException.ConstraintKind.UNIQUE) {
+                throw e;
+            }
+            inserted = 0;
+        }
+
+        if (inserted == 0) {
+            // Convite repetido: devolve o participante que já existe
+            return new ParticipantInvitation(this.participantRepository.findIdByTripIdAndEmail(trip.getId(), email).orElseThrow(), false);
+        }
+
+        // Avisa os inscritos no feed de eventos da viagem
+        this.eventPublisher.publishEvent(new TripChangedEvent(trip.getId(), TripChangedEvent.PARTICIPANT_INVITED, id));
+
+        return new ParticipantInvitation(id, true);
+    }
+
+    /**
+     * Confirma a presença (RSVP) de um convidado pelo email, com uma única instrução UPDATE condicional.
+     * Repetir a confirmação com o mesmo nome não altera nada, então retentativas são seguras.
+     *
+     * parametro tripId O UUID da viagem.
+     * parametro rawEmail O email do convidado, normalizado como no convite.
+     * parametro name O nome informado pelo convidado, ou nulo para manter o atual.
+     * returna Os dados do participante e se a confirmação os alterou, ou vazio se o email não foi convidado para a viagem.
      */
-    public ParticipantCreateResponse registerParticipantToTrip(String email, Trip trip) {
-        // Cria um novo participante a partir do email e da viagem
-        Participant newParticipant = new Participant(email, trip);
+    @Transactional
+    public Optional<ParticipantConfirmation> confirmParticipant(UUID tripId, String rawEmail, String name) {
+        String email = normalizeEmail(rawEmail);
+        boolean confirmed = this.participantRepository.confirmByTripIdAndEmail(tripId, email, name) > 0;
+
+        if (confirmed) {
+            this.tripStatsService.recordConfirmation(tripId);
+        }
 
-        // Salva o novo participante no banco de dados
-        this.participantRepository.save(newParticipant);
+        // Já confirmado: só o nome pode mudar, e a troca conta uma alteração na revisão da viagem, base das ETags
+        boolean renamed = !confirmed && name != null && this.participantRepository.renameConfirmedByTripIdAndEmail(tripId, email, name) > 0;
+        if (renamed) {
+            this.tripStatsService.recordChange(tripId);
+        }
+        boolean changed = confirmed || renamed;
 
-        // Retorna a resposta contendo o ID do novo participante
-        return new ParticipantCreateResponse(newParticipant.getId());
+        Optional<ParticipantData> participant = this.participantRepository.findDataByTripIdAndEmail(tripId, email);
+
+        if (changed) {
+            // Publicado depois do commit desta transação
+            this.eventPublisher.publishEvent(new TripChangedEvent(tripId, TripChangedEvent.PARTICIPANT_CONFIRMED, participant.get().id()));
+        }
+
+        return participant.map(data -> new ParticipantConfirmation(data, changed));
     }
 
     /**
-     * Envia um email de confirmação para todos os participantes de uma viagem.
-     * Este método ainda não está implementado.
+     * Enfileira um email de confirmação para todos os participantes de uma viagem.
+     * O envio acontece depois, fora da thread da requisição.
      *
-     * @parametro tripId O UUID da viagem para a qual os emails de confirmação serão enviados.
+     * parametro tripId O UUID da viagem para a qual os emails de confirmação serão enviados.
      */
     public void triggerConfirmationEmailToParticipants(UUID tripId) {
-        // Implementação pendente
+        // Enfileira uma mensagem por participante em uma única instrução
+        this.emailOutboxRepository.enqueueForTrip(tripId);
     }
 
     /**
-     * Envia um email de confirmação para um participante específico.
-     * Este método ainda não está implementado.
+     * Enfileira um email de confirmação para um participante específico, caso a viagem já esteja confirmada.
+     * O envio acontece depois, fora da thread da requisição.
      *
+     * parametro tripId O UUID da viagem do participante.
      * parametro email O email do participante que receberá o email de confirmação.
      */
-    public void triggerConfirmationEmailToParticipant(String email) {
-        // Implementação pendente
+    public void triggerConfirmationEmailToParticipant(UUID tripId, String email) {
+        // A verificação de viagem confirmada é feita pelo próprio INSERT, sem carregar a viagem
+        this.emailOutboxRepository.enqueueIfTripConfirmed(tripId, normalizeEmail(email));
     }
 
     /**
@@ -80,10 +297,29 @@ public class ParticipantService {
      * parametro tripId O UUID da viagem para a qual os participantes serão recuperados.
      * returna Uma lista de ParticipantData contendo os dados dos participantes.
      */
+    @Transactional(readOnly = true)
     public List<ParticipantData> getAllParticipantsFromTrip(UUID tripId) {
-        // Busca os participantes pelo tripId e mapeia para ParticipantData
-        return this.participantRepository.findByTripId(tripId).stream()
-                .map(participant -> new ParticipantData(participant.getId(), participant.getName(), participant.getEmail(), participant.getIsConfirmed()))
-                .toList();
+        // Busca os participantes pelo tripId já projetados em ParticipantData
+        return this.participantRepository.findDataByTripId(tripId);
+    }
+
+    /**
+     * Obtém uma página dos participantes de uma viagem, ordenados por id.
+     *
+     * parametro tripId O UUID da viagem para a qual os participantes serão recuperados.
+     * parametro cursor O cursor devolvido pela página anterior, ou nulo para a primeira página.
+     * parametro limit O tamanho da página.
+     * returna A página de ParticipantData e o cursor da próxima página.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ParticipantData> getParticipantsPageFromTrip(UUID tripId, String cursor, int limit) {
+        // Busca uma linha a mais para saber se existe próxima página
+        Limit fetch = Limit.of(limit + 1);
+
+        List<ParticipantData> rows = cursor == null
+                ? this.participantRepository.findDataPageByTripId(tripId, fetch)
+                : this.participantRepository.findDataPageByTripIdAfter(tripId, Cursors.decode(cursor, 1, keys -> UUID.fromString(keys.get(0))), fetch);
+
+        return Cursors.page(rows, limit, participant -> Cursors.encode(participant.id()));
     }
 }
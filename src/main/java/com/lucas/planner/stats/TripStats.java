@@ -0,0 +1,15 @@
+package com.lucas.planner.stats;
+
+import java.util.UUID;
+
+/**
+ * Record TripStats com os contadores de uma viagem, somados sobre as suas faixas.
+ *
+ * parametro trip_id O UUID da viagem.
+ * parametro participants Quantidade de participantes convidados.
+ * parametro confirmed_participants Quantidade de participantes que confirmaram presença.
+ * parametro activities Quantidade de atividades.
+ * parametro links Quantidade de links.
+ */
+public record TripStats(UUID trip_id, long participants, long confirmed_participants, long activities, long links) {
+}
@@ -0,0 +1,42 @@
+package com.lucas.planner.stats;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Controlador REST dos contadores de viagens, usados pelas listagens do painel.
+ */
+@RestController
+@RequestMapping("/trips")
+public class TripStatsController {
+
+    @Autowired
+    private TripStatsService tripStatsService;
+
+    @Value("${planner.trip-stats.max-ids}")
+    private int maxIds;
+
+    /**
+     * Obtém os contadores de várias viagens de uma vez.
+     *
+     * parametro ids Os UUIDs das viagens, separados por vírgula.
+     * returna Resposta HTTP contendo os contadores na ordem pedida, sem as viagens inexistentes,
+     * ou 400 se forem pedidas mais viagens que planner.trip-stats.max-ids.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<TripStats>> getTripStats(@RequestParam List<UUID> ids) {
+        if (ids.size() > this.maxIds) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(this.tripStatsService.getStats(ids));
+    }
+}
@@ -0,0 +1,41 @@
+package com.lucas.planner.stats;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface TripStatsRepository extends JpaRepository<TripStatsStripe, TripStatsStripe.Key> {
+
+    // Cria as faixas zeradas de uma viagem nova em uma única instrução
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO trip_stats (trip_id, stripe, participants, confirmed_participants, activities, links)
+            SELECT :tripId, x, 0, 0, 0, 0 FROM SYSTEM_RANGE(0, :stripes - 1)""")
+    int createStripes(@Param("tripId") UUID tripId, @Param("stripes") int stripes);
+
+    // Incrementa uma faixa e conta uma alteração na viagem; o lock de linha dura até o commit da transação da escrita que originou o incremento
+    @Transactional
+    @Modifying
+    @Query("""
+            update TripStatsStripe s set s.participants = s.participants + :participants,
+                s.confirmedParticipants = s.confirmedParticipants + :confirmed,
+                s.activities = s.activities + :activities,
+                s.links = s.links + :links,
+                s.changes = s.changes + 1
+            where s.tripId = :tripId and s.stripe = :stripe""")
+    int increment(@Param("tripId") UUID tripId, @Param("stripe") int stripe, @Param("participants") long participants,
+                  @Param("confirmed") long confirmed, @Param("activities") long activities, @Param("links") long links);
+
+    // Soma as faixas de várias viagens em uma consulta, servida pela chave primária (trip_id, stripe)
+    @Query("""
+            select new com.lucas.planner.stats.TripStats(s.tripId, sum(s.participants), sum(s.confirmedParticipants), sum(s.activities), sum(s.links))
+            from TripStatsStripe s where s.tripId in :tripIds group by s.tripId""")
+    List<TripStats> findStatsByTripIds(@Param("tripIds") Collection<UUID> tripIds);
+}
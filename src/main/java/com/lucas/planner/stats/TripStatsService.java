@@ -0,0 +1,116 @@
+package com.lucas.planner.stats;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantém os contadores materializados das viagens (participantes, confirmados, atividades e links).
+ * Os serviços chamam os métodos record* dentro da mesma transação das suas inserções, então os contadores
+ * são gravados ou descartados junto com elas. Cada incremento cai em uma faixa sorteada entre STRIPES,
+ * de modo que inserções simultâneas na mesma viagem raramente esperam pelo mesmo lock de linha.
+ * Cada incremento também conta uma alteração na faixa (coluna changes); somadas à versão da linha trips,
+ * elas formam a revisão da viagem usada nas ETags, então escritas nos filhos nunca atualizam a linha da viagem.
+ */
+@Service
+@Timed("planner.service")
+public class TripStatsService {
+
+    // Quantidade de faixas por viagem; a migração V10 cria as faixas das viagens existentes com o mesmo valor
+    public static final int STRIPES = 8;
+
+    @Autowired
+    private TripStatsRepository tripStatsRepository;
+
+    /**
+     * Cria as faixas zeradas de uma viagem recém-criada.
+     *
+     * parametro tripId O UUID da viagem.
+     */
+    public void createStats(UUID tripId) {
+        this.tripStatsRepository.createStripes(tripId, STRIPES);
+    }
+
+    /**
+     * Soma participantes convidados à viagem e conta uma alteração na revisão dela.
+     * Deve ser chamado na transação que inseriu os participantes; sem participantes novos não grava nada.
+     *
+     * parametro tripId O UUID da viagem.
+     * parametro count Quantos participantes foram de fato inseridos.
+     */
+    public void recordParticipants(UUID tripId, long count) {
+        this.increment(tripId, count, 0, 0, 0);
+    }
+
+    /**
+     * Soma um participante confirmado e conta uma alteração na revisão da viagem.
+     * Deve ser chamado só quando a confirmação alterou o participante, na mesma transação.
+     *
+     * parametro tripId O UUID da viagem.
+     */
+    public void recordConfirmation(UUID tripId) {
+        this.increment(tripId, 0, 1, 0, 0);
+    }
+
+    /**
+     * Soma uma atividade e conta uma alteração na revisão da viagem, na transação que inseriu a atividade.
+     *
+     * parametro tripId O UUID da viagem.
+     */
+    public void recordActivity(UUID tripId) {
+        this.increment(tripId, 0, 0, 1, 0);
+    }
+
+    /**
+     * Soma um link e conta uma alteração na revisão da viagem, na transação que inseriu o link.
+     *
+     * parametro tripId O UUID da viagem.
+     */
+    public void recordLink(UUID tripId) {
+        this.increment(tripId, 0, 0, 0, 1);
+    }
+
+    /**
+     * Conta só uma alteração na revisão da viagem, sem mexer nos contadores, para escritas que mudam
+     * um filho sem alterar as contagens (o nome de um participante já confirmado, por exemplo).
+     * Deve ser chamado só quando a escrita de fato alterou uma linha, na mesma transação.
+     *
+     * parametro tripId O UUID da viagem.
+     */
+    public void recordChange(UUID tripId) {
+        this.tripStatsRepository.increment(tripId, ThreadLocalRandom.current().nextInt(STRIPES), 0, 0, 0, 0);
+    }
+
+    /**
+     * Obtém os contadores de várias viagens em uma única consulta.
+     *
+     * parametro tripIds Os UUIDs das viagens, na ordem desejada.
+     * returna Os contadores na mesma ordem, sem as viagens inexistentes e sem repetições.
+     */
+    @Transactional(readOnly = true)
+    public List<TripStats> getStats(Collection<UUID> tripIds) {
+        Map<UUID, TripStats> byId = this.tripStatsRepository.findStatsByTripIds(tripIds).stream()
+                .collect(Collectors.toMap(TripStats::trip_id, Function.identity()));
+
+        return tripIds.stream().distinct().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    // Um UPDATE em uma faixa sorteada; é o único lock de linha que a escrita de um filho toma em nome da viagem
+    private void increment(UUID tripId, long participants, long confirmed, long activities, long links) {
+        if (participants == 0 && confirmed == 0 && activities == 0 && links == 0) {
+            return;
+        }
+
+        this.tripStatsRepository.increment(tripId, ThreadLocalRandom.current().nextInt(STRIPES), participants, confirmed, activities, links);
+    }
+}
@@ -0,0 +1,51 @@
+package com.lucas.planner.stats;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Uma faixa dos contadores de uma viagem (tabela trip_stats). As linhas são criadas e incrementadas
+ * por instruções do TripStatsRepository, nunca carregadas e salvas pelo contexto de persistência.
+ */
+@Entity
+@Table(name = "trip_stats")
+@IdClass(TripStatsStripe.Key.class)
+@Getter
+@NoArgsConstructor
+public class TripStatsStripe {
+
+    @Id
+    @Column(name = "trip_id")
+    private UUID tripId;
+
+    @Id
+    private int stripe;
+
+    private long participants;
+
+    private long confirmedParticipants;
+
+    private long activities;
+
+    private long links;
+
+    // Alterações nos filhos da viagem; somadas à versão da viagem, formam a revisão usada nas ETags
+    private long changes;
+
+    // Chave composta (trip_id, stripe); classe comum porque o Hibernate associa os atributos de um record fora de ordem
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private UUID tripId;
+
+        private int stripe;
+    }
+}
@@ -0,0 +1,89 @@
+package com.lucas.planner.time;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Leitura de datas e horas ISO-8601 sem passar pelo resolvedor genérico do DateTimeFormatter.
+ * Os formatos que a API recebe na prática (yyyy-MM-ddTHH:mm, yyyy-MM-ddTHH:mm:ss e yyyy-MM-ddTHH:mm:ss.fffffffff)
+ * são lidos caractere a caractere; qualquer outro formato, como os com fuso ou offset, cai no ISO_DATE_TIME,
+ * então o resultado e as entradas aceitas são os mesmos de LocalDateTime.parse(text, ISO_DATE_TIME).
+ */
+public final class IsoDateTimes {
+
+    private static final int[] FRACTION_SCALE = {0, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1};
+
+    private IsoDateTimes() {
+    }
+
+    /**
+     * Converte um texto ISO-8601 em LocalDateTime.
+     *
+     * parametro text O texto a ser convertido.
+     * returna A data e hora lida.
+     * lança DateTimeParseException se o texto não for uma data e hora ISO-8601 válida.
+     */
+    public static LocalDateTime parse(CharSequence text) {
+        LocalDateTime fast = parseFast(text);
+        return fast != null ? fast : LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME);
+    }
+
+    // Retorna nulo quando o texto não está em um dos formatos fixos ou tem valores fora do intervalo,
+    // deixando para o ISO_DATE_TIME aceitar a variação ou produzir a mensagem de erro
+    private static LocalDateTime parseFast(CharSequence text) {
+        int length = text.length();
+        if (length != 16 && length != 19 && (length < 21 || length > 29)) {
+            return null;
+        }
+        if (text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T' || text.charAt(13) != ':') {
+            return null;
+        }
+
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = 0;
+        int nano = 0;
+
+        if (length > 16) {
+            if (text.charAt(16) != ':') {
+                return null;
+            }
+            second = digits(text, 17, 2);
+
+            if (length > 19) {
+                if (text.charAt(19) != '.') {
+                    return null;
+                }
+                int fraction = digits(text, 20, length - 20);
+                nano = fraction < 0 ? -1 : fraction * FRACTION_SCALE[length - 20];
+            }
+        }
+
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return null;
+        }
+
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    // Lê count dígitos a partir de offset; retorna -1 se algum caractere não for dígito
+    private static int digits(CharSequence text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
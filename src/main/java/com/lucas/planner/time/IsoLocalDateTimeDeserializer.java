@@ -0,0 +1,35 @@
+package com.lucas.planner.time;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * Deserializador Jackson para campos de data e hora ISO-8601 dos payloads, usando IsoDateTimes.
+ * Um valor inválido vira InvalidFormatException, que o Spring responde com 400.
+ */
+public class IsoLocalDateTimeDeserializer extends StdScalarDeserializer<LocalDateTime> {
+
+    public IsoLocalDateTimeDeserializer() {
+        super(LocalDateTime.class);
+    }
+
+    @Override
+    public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (!parser.hasToken(JsonToken.VALUE_STRING)) {
+            return (LocalDateTime) context.handleUnexpectedToken(LocalDateTime.class, parser);
+        }
+
+        String text = parser.getText();
+        try {
+            return IsoDateTimes.parse(text);
+        } catch (DateTimeException e) {
+            return (LocalDateTime) context.handleWeirdStringValue(LocalDateTime.class, text, "esperada data e hora ISO-8601, como 2024-07-01T10:00:00");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.lucas.planner.transfer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.lucas.planner.time.IsoLocalDateTimeDeserializer;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Record TransferActivity para encapsular uma atividade nas linhas NDJSON de exportação e importação.
+ * O trip_id só é usado para casar a atividade com a sua viagem durante a exportação e não é serializado.
+ *
+ * parametro trip_id Identificador da viagem da atividade.
+ * parametro id Identificador único da atividade.
+ * parametro title Título da atividade.
+ * parametro occurs_at Data e hora em que a atividade ocorre.
+ * parametro duration_minutes Duração da atividade em minutos, ou nulo se não informada.
+ */
+public record TransferActivity(@JsonIgnore UUID trip_id, UUID id, String title, @JsonDeserialize(using = IsoLocalDateTimeDeserializer.class) LocalDateTime occurs_at, Integer duration_minutes) {
+}
@@ -0,0 +1,17 @@
+package com.lucas.planner.transfer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.UUID;
+
+/**
+ * Record TransferLink para encapsular um link nas linhas NDJSON de exportação e importação.
+ * O trip_id só é usado para casar o link com a sua viagem durante a exportação e não é serializado.
+ *
+ * parametro trip_id Identificador da viagem do link.
+ * parametro id Identificador único do link.
+ * parametro title Título do link.
+ * parametro url URL do link.
+ */
+public record TransferLink(@JsonIgnore UUID trip_id, UUID id, String title, String url) {
+}
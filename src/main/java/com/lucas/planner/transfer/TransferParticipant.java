@@ -0,0 +1,18 @@
+package com.lucas.planner.transfer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.UUID;
+
+/**
+ * Record TransferParticipant para encapsular um participante nas linhas NDJSON de exportação e importação.
+ * O trip_id só é usado para casar o participante com a sua viagem durante a exportação e não é serializado.
+ *
+ * parametro trip_id Identificador da viagem do participante.
+ * parametro id Identificador único do participante.
+ * parametro name Nome do participante.
+ * parametro email Email do participante.
+ * parametro is_confirmed Indica se o participante confirmou presença.
+ */
+public record TransferParticipant(@JsonIgnore UUID trip_id, UUID id, String name, String email, Boolean is_confirmed) {
+}
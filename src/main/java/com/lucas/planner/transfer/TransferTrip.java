@@ -0,0 +1,29 @@
+package com.lucas.planner.transfer;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.lucas.planner.time.IsoLocalDateTimeDeserializer;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Record TransferTrip para encapsular uma linha NDJSON de importação: a viagem com os seus filhos aninhados.
+ * É o mesmo formato gerado pela exportação.
+ *
+ * parametro id Identificador da viagem; gerado na importação se ausente.
+ * parametro destination Destino da viagem.
+ * parametro starts_at Data e hora de início da viagem.
+ * parametro ends_at Data e hora de término da viagem.
+ * parametro is_confirmed Indica se a viagem está confirmada; falso se ausente.
+ * parametro owner_name Nome do dono da viagem.
+ * parametro owner_email Email do dono da viagem.
+ * parametro participants Participantes da viagem.
+ * parametro activities Atividades da viagem.
+ * parametro links Links da viagem.
+ */
+public record TransferTrip(UUID id, String destination,
+                           @JsonDeserialize(using = IsoLocalDateTimeDeserializer.class) LocalDateTime starts_at,
+                           @JsonDeserialize(using = IsoLocalDateTimeDeserializer.class) LocalDateTime ends_at,
+                           Boolean is_confirmed, String owner_name, String owner_email, List<TransferParticipant> participants,
+                           List<TransferActivity> activities, List<TransferLink> links) {
+}
@@ -0,0 +1,165 @@
+package com.lucas.planner.transfer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucas.planner.activity.ActivityRepository;
+import com.lucas.planner.link.LinkRepository;
+import com.lucas.planner.participant.ParticipantRepository;
+import com.lucas.planner.trip.TripData;
+import com.lucas.planner.trip.TripRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exporta viagens em NDJSON: uma linha por viagem, com os participantes, atividades e links aninhados.
+ * As linhas são escritas direto na saída enquanto os cursores do banco são percorridos, então o consumo
+ * de memória não depende do tamanho da viagem nem da quantidade de viagens.
+ */
+@Service
+@Timed("planner.service")
+public class TripExportService {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ParticipantRepository participantRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public TripExportService(PlatformTransactionManager transactionManager) {
+        // Os cursores só ficam abertos dentro de uma transação. O isolamento serializable faz todas as consultas
+        // enxergarem o mesmo estado do banco, então nenhum filho aparece sem a sua viagem no meio do casamento
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+    }
+
+    /**
+     * Exporta uma viagem e os seus filhos como uma linha NDJSON.
+     *
+     * parametro tripId O UUID da viagem.
+     * parametro out A saída onde a linha é escrita.
+     */
+    public void exportTrip(UUID tripId, OutputStream out) {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<TripData> trips = this.tripRepository.streamDataById(tripId);
+                 Stream<TransferParticipant> participants = this.participantRepository.streamTransferByTripId(tripId);
+                 Stream<TransferActivity> activities = this.activityRepository.streamTransferByTripId(tripId);
+                 Stream<TransferLink> links = this.linkRepository.streamTransferByTripId(tripId)) {
+                this.write(trips, participants, activities, links, out);
+            }
+        });
+    }
+
+    /**
+     * Exporta todas as viagens, uma linha NDJSON por viagem.
+     * Cada tabela é lida uma única vez, ordenada por trip_id, e os filhos são casados com as viagens em uma única passada.
+     *
+     * parametro out A saída onde as linhas são escritas.
+     */
+    public void exportAll(OutputStream out) {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<TripData> trips = this.tripRepository.streamAllData();
+                 Stream<TransferParticipant> participants = this.participantRepository.streamAllTransfer();
+                 Stream<TransferActivity> activities = this.activityRepository.streamAllTransfer();
+                 Stream<TransferLink> links = this.linkRepository.streamAllTransfer()) {
+                this.write(trips, participants, activities, links, out);
+            }
+        });
+    }
+
+    private void write(Stream<TripData> trips, Stream<TransferParticipant> participants, Stream<TransferActivity> activities, Stream<TransferLink> links, OutputStream out) {
+        Peeking<TransferParticipant> pendingParticipants = new Peeking<>(participants.iterator());
+        Peeking<TransferActivity> pendingActivities = new Peeking<>(activities.iterator());
+        Peeking<TransferLink> pendingLinks = new Peeking<>(links.iterator());
+
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(out)) {
+            // A saída pertence ao servlet; o gerador só a esvazia
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            for (Iterator<TripData> iterator = trips.iterator(); iterator.hasNext(); ) {
+                TripData trip = iterator.next();
+
+                generator.writeStartObject();
+                generator.writeStringField("id", trip.id().toString());
+                generator.writeStringField("destination", trip.destination());
+                generator.writeStringField("starts_at", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(trip.startsAt()));
+                generator.writeStringField("ends_at", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(trip.endsAt()));
+                generator.writeBooleanField("is_confirmed", trip.isConfirmed());
+                generator.writeStringField("owner_name", trip.ownerName());
+                generator.writeStringField("owner_email", trip.ownerEmail());
+
+                writeChildren(generator, "participants", trip.id(), pendingParticipants, TransferParticipant::trip_id);
+                writeChildren(generator, "activities", trip.id(), pendingActivities, TransferActivity::trip_id);
+                writeChildren(generator, "links", trip.id(), pendingLinks, TransferLink::trip_id);
+
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Escreve os filhos da viagem, consumindo do cursor enquanto o trip_id for o da viagem atual
+    private static <T> void writeChildren(JsonGenerator generator, String field, UUID tripId, Peeking<T> pending, Function<T, UUID> tripIdOf) throws IOException {
+        generator.writeArrayFieldStart(field);
+        while (pending.hasNext() && tripId.equals(tripIdOf.apply(pending.peek()))) {
+            generator.writeObject(pending.next());
+        }
+        generator.writeEndArray();
+    }
+
+    // Iterator que permite olhar o próximo elemento sem consumi-lo
+    private static final class Peeking<T> {
+
+        private final Iterator<T> iterator;
+
+        private T next;
+
+        Peeking(Iterator<T> iterator) {
+            this.iterator = iterator;
+        }
+
+        boolean hasNext() {
+            return this.next != null || this.iterator.hasNext();
+        }
+
+        T peek() {
+            if (this.next == null) {
+                this.next = this.iterator.next();
+            }
+            return this.next;
+        }
+
+        T next() {
+            T value = this.peek();
+            this.next = null;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.lucas.planner.transfer;
+
+/**
+ * Record TripImportError para encapsular o erro de uma linha da importação.
+ *
+ * parametro line Número da linha no corpo da requisição, a partir de 1.
+ * parametro message Motivo pelo qual a linha não foi importada.
+ */
+public record TripImportError(long line, String message) {
+}
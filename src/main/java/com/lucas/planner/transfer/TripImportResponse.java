@@ -0,0 +1,14 @@
+package com.lucas.planner.transfer;
+
+import java.util.List;
+
+/**
+ * Record TripImportResponse para encapsular o resultado de uma importação NDJSON.
+ *
+ * parametro received Quantidade de linhas com viagens recebidas.
+ * parametro imported Quantidade de viagens importadas.
+ * parametro failed Quantidade de linhas rejeitadas.
+ * parametro errors Os erros por linha, limitados a planner.transfer.import.max-reported-errors.
+ */
+public record TripImportResponse(long received, long imported, long failed, List<TripImportError> errors) {
+}
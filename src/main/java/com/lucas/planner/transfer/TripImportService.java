@@ -0,0 +1,352 @@
+package com.lucas.planner.transfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucas.planner.activity.ActivitySchedule;
+import com.lucas.planner.participant.ParticipantService;
+import com.lucas.planner.stats.TripStatsService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Importa viagens de um corpo NDJSON, uma viagem por linha com os filhos aninhados (o formato da exportação).
+ * O corpo é lido linha a linha e as viagens válidas são acumuladas em blocos; cada bloco é gravado em uma
+ * transação com lotes JDBC. A próxima linha só é lida depois que o bloco anterior foi gravado, então um cliente
+ * mais rápido que o banco é freado pelo próprio TCP e a memória usada fica limitada ao tamanho do bloco.
+ * Linhas inválidas são relatadas e puladas, sem interromper a importação; o mesmo vale para linhas maiores que
+ * planner.transfer.import.max-line-length caracteres, que são descartadas sem serem guardadas inteiras.
+ */
+@Service
+@Timed("planner.service")
+public class TripImportService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${planner.transfer.import.chunk-rows}")
+    private int chunkRows;
+
+    @Value("${planner.transfer.import.max-reported-errors}")
+    private int maxReportedErrors;
+
+    @Value("${planner.transfer.import.max-line-length}")
+    private int maxLineLength;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public TripImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Importa as viagens do corpo NDJSON.
+     *
+     * parametro body Corpo da requisição, uma viagem por linha.
+     * returna O resumo da importação com os erros por linha.
+     */
+    public TripImportResponse importTrips(InputStream body) throws IOException {
+        Report report = new Report(this.maxReportedErrors);
+        List<Line> chunk = new ArrayList<>();
+        int chunkSize = 0;
+
+        try (LineReader reader = new LineReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), this.maxLineLength)) {
+            long number = 0;
+            for (String text = reader.readLine(); text != null; text = reader.readLine()) {
+                number++;
+                if (reader.truncated()) {
+                    report.received++;
+                    report.fail(number, "Linha maior que " + this.maxLineLength + " caracteres");
+                    continue;
+                }
+                if (text.isBlank()) {
+                    continue;
+                }
+                report.received++;
+
+                TransferTrip parsed;
+                try {
+                    parsed = this.objectMapper.readValue(text, TransferTrip.class);
+                } catch (JsonProcessingException e) {
+                    report.fail(number, "JSON inválido: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                String malformed = malformed(parsed);
+                if (malformed != null) {
+                    report.fail(number, malformed);
+                    continue;
+                }
+
+                TransferTrip trip = withIds(parsed);
+                String invalid = validate(trip);
+                if (invalid != null) {
+                    report.fail(number, invalid);
+                    continue;
+                }
+
+                chunk.add(new Line(number, trip));
+                chunkSize += rows(trip);
+
+                if (chunkSize >= this.chunkRows) {
+                    this.writeChunk(chunk, report);
+                    chunk.clear();
+                    chunkSize = 0;
+                }
+            }
+        }
+
+        this.writeChunk(chunk, report);
+
+        return new TripImportResponse(report.received, report.imported, report.failed, report.errors);
+    }
+
+    // Grava o bloco em uma transação; se o banco rejeitar alguma linha, regrava linha a linha para isolar as rejeitadas
+    private void writeChunk(List<Line> chunk, Report report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> this.insert(chunk.stream().map(Line::trip).toList()));
+            report.imported += chunk.size();
+        } catch (DataAccessException chunkFailure) {
+            for (Line line : chunk) {
+                try {
+                    this.transactionTemplate.executeWithoutResult(status -> this.insert(List.of(line.trip())));
+                    report.imported++;
+                } catch (DataAccessException e) {
+                    report.fail(line.number(), "Rejeitada pelo banco: " + e.getMostSpecificCause().getMessage().lines().findFirst().orElse(""));
+                }
+            }
+        }
+    }
+
+    private void insert(List<TransferTrip> trips) {
+        this.jdbcTemplate.batchUpdate(
+                "INSERT INTO trips (id, destination, starts_at, ends_at, is_confirmed, owner_name, owner_email, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)",
+                trips, trips.size(), (statement, trip) -> {
+                    statement.setObject(1, trip.id());
+                    statement.setString(2, trip.destination());
+                    statement.setTimestamp(3, Timestamp.valueOf(trip.starts_at()));
+                    statement.setTimestamp(4, Timestamp.valueOf(trip.ends_at()));
+                    statement.setBoolean(5, trip.is_confirmed());
+                    statement.setString(6, trip.owner_name());
+                    statement.setString(7, trip.owner_email());
+                });
+
+        List<TransferParticipant> participants = trips.stream().flatMap(trip -> trip.participants().stream()).toList();
+        this.jdbcTemplate.batchUpdate(
+                "INSERT INTO participants (id, name, email, is_confirmed, trip_id) VALUES (?, ?, ?, ?, ?)",
+                participants, participants.size(), (statement, participant) -> {
+                    statement.setObject(1, participant.id());
+                    statement.setString(2, participant.name());
+                    statement.setString(3, participant.email());
+                    statement.setBoolean(4, participant.is_confirmed());
+                    statement.setObject(5, participant.trip_id());
+                });
+
+        List<TransferActivity> activities = trips.stream().flatMap(trip -> trip.activities().stream()).toList();
+        this.jdbcTemplate.batchUpdate(
+                "INSERT INTO activities (id, title, occurs_at, duration_minutes, trip_id) VALUES (?, ?, ?, ?, ?)",
+                activities, activities.size(), (statement, activity) -> {
+                    statement.setObject(1, activity.id());
+                    statement.setString(2, activity.title());
+                    statement.setTimestamp(3, Timestamp.valueOf(activity.occurs_at()));
+                    statement.setObject(4, activity.duration_minutes(), Types.INTEGER);
+                    statement.setObject(5, activity.trip_id());
+                });
+
+        List<TransferLink> links = trips.stream().flatMap(trip -> trip.links().stream()).toList();
+        this.jdbcTemplate.batchUpdate(
+                "INSERT INTO links (id, title, url, trip_id) VALUES (?, ?, ?, ?)",
+                links, links.size(), (statement, link) -> {
+                    statement.setObject(1, link.id());
+                    statement.setString(2, link.title());
+                    statement.setString(3, link.url());
+                    statement.setObject(4, link.trip_id());
+                });
+
+        // Contadores das viagens, com as contagens importadas na faixa 0 e as demais zeradas, como na migração V10
+        List<Object[]> stripes = new ArrayList<>(trips.size() * TripStatsService.STRIPES);
+        for (TransferTrip trip : trips) {
+            long confirmed = trip.participants().stream().filter(TransferParticipant::is_confirmed).count();
+            stripes.add(new Object[]{trip.id(), 0, trip.participants().size(), confirmed, trip.activities().size(), trip.links().size()});
+
+            for (int stripe = 1; stripe < TripStatsService.STRIPES; stripe++) {
+                stripes.add(new Object[]{trip.id(), stripe, 0, 0, 0, 0});
+            }
+        }
+        this.jdbcTemplate.batchUpdate("INSERT INTO trip_stats (trip_id, stripe, participants, confirmed_participants, activities, links) VALUES (?, ?, ?, ?, ?, ?)", stripes);
+    }
+
+    // Confere a forma da linha antes de withIds, que não aceita uma viagem nula (a linha "null") nem elementos nulos nas listas;
+    // retorna o motivo da rejeição ou nulo
+    private static String malformed(TransferTrip trip) {
+        if (trip == null) {
+            return "A linha precisa ser um objeto de viagem";
+        }
+        if (hasNull(trip.participants()) || hasNull(trip.activities()) || hasNull(trip.links())) {
+            return "participants, activities e links não podem ter elementos nulos";
+        }
+        return null;
+    }
+
+    private static boolean hasNull(List<?> list) {
+        return list != null && list.stream().anyMatch(Objects::isNull);
+    }
+
+    // Completa ids ausentes, liga os filhos à viagem, normaliza os emails como nos convites e troca listas ausentes por vazias
+    private static TransferTrip withIds(TransferTrip trip) {
+        UUID tripId = trip.id() == null ? UUID.randomUUID() : trip.id();
+
+        List<TransferParticipant> participants = Objects.requireNonNullElse(trip.participants(), List.<TransferParticipant>of()).stream()
+                .map(p -> new TransferParticipant(tripId, p.id() == null ? UUID.randomUUID() : p.id(), Objects.requireNonNullElse(p.name(), ""),
+                        ParticipantService.normalizeEmail(p.email()), Boolean.TRUE.equals(p.is_confirmed())))
+                .toList();
+        List<TransferActivity> activities = Objects.requireNonNullElse(trip.activities(), List.<TransferActivity>of()).stream()
+                .map(a -> new TransferActivity(tripId, a.id() == null ? UUID.randomUUID() : a.id(), a.title(), a.occurs_at(), a.duration_minutes()))
+                .toList();
+        List<TransferLink> links = Objects.requireNonNullElse(trip.links(), List.<TransferLink>of()).stream()
+                .map(l -> new TransferLink(tripId, l.id() == null ? UUID.randomUUID() : l.id(), l.title(), l.url()))
+                .toList();
+
+        return new TransferTrip(tripId, trip.destination(), trip.starts_at(), trip.ends_at(), Boolean.TRUE.equals(trip.is_confirmed()),
+                trip.owner_name(), ParticipantService.normalizeEmail(trip.owner_email()), participants, activities, links);
+    }
+
+    // Confere os campos obrigatórios antes de a linha entrar no bloco; retorna o motivo da rejeição ou nulo
+    private static String validate(TransferTrip trip) {
+        if (trip.destination() == null || trip.starts_at() == null || trip.ends_at() == null || trip.owner_name() == null || trip.owner_email() == null) {
+            return "destination, starts_at, ends_at, owner_name e owner_email são obrigatórios";
+        }
+        if (trip.participants().stream().anyMatch(p -> p.email() == null || p.email().isEmpty())) {
+            return "Todo participante precisa de email";
+        }
+        // Emails já normalizados: variações de caixa e espaços do mesmo email também são repetições
+        if (trip.participants().stream().map(TransferParticipant::email).distinct().count() != trip.participants().size()) {
+            return "Emails de participantes repetidos";
+        }
+        if (trip.activities().stream().anyMatch(a -> a.title() == null || a.occurs_at() == null)) {
+            return "Toda atividade precisa de title e occurs_at";
+        }
+        if (trip.activities().stream().anyMatch(a -> !ActivitySchedule.fitsWithin(a.occurs_at(), a.duration_minutes(), trip.starts_at(), trip.ends_at()))) {
+            return "Atividade fora do período da viagem ou com duração negativa";
+        }
+        if (trip.links().stream().anyMatch(l -> l.title() == null || l.url() == null)) {
+            return "Todo link precisa de title e url";
+        }
+        return null;
+    }
+
+    private static int rows(TransferTrip trip) {
+        return 1 + trip.participants().size() + trip.activities().size() + trip.links().size();
+    }
+
+    private record Line(long number, TransferTrip trip) {
+    }
+
+    // Leitor de linhas com tamanho máximo: o BufferedReader.readLine acumularia uma linha sem quebra inteira na memória.
+    // Uma linha maior que o limite é consumida até a quebra sem ser guardada e volta vazia, com truncated() verdadeiro
+    private static final class LineReader implements AutoCloseable {
+
+        private final BufferedReader reader;
+
+        private final int maxLength;
+
+        private final StringBuilder line = new StringBuilder();
+
+        private boolean truncated;
+
+        LineReader(BufferedReader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        // Retorna a próxima linha sem o terminador (\n ou \r\n), ou nulo no fim do corpo
+        String readLine() throws IOException {
+            this.line.setLength(0);
+            this.truncated = false;
+
+            int c = this.reader.read();
+            if (c == -1) {
+                return null;
+            }
+            for (; c != -1 && c != '\n'; c = this.reader.read()) {
+                if (this.truncated) {
+                    continue;
+                }
+                this.line.append((char) c);
+                // Um caractere além do limite, para o \r de um terminador \r\n
+                if (this.line.length() > this.maxLength + 1) {
+                    this.truncated = true;
+                    this.line.setLength(0);
+                }
+            }
+
+            int length = this.line.length();
+            if (length > 0 && this.line.charAt(length - 1) == '\r') {
+                this.line.setLength(--length);
+            }
+            if (length > this.maxLength) {
+                this.truncated = true;
+                this.line.setLength(0);
+            }
+            return this.line.toString();
+        }
+
+        boolean truncated() {
+            return this.truncated;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.reader.close();
+        }
+    }
+
+    // Contadores da importação; só os primeiros erros são guardados para a resposta
+    private static final class Report {
+
+        private final int maxErrors;
+
+        private final List<TripImportError> errors = new ArrayList<>();
+
+        private long received;
+
+        private long imported;
+
+        private long failed;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void fail(long line, String message) {
+            this.failed++;
+            if (this.errors.size() < this.maxErrors) {
+                this.errors.add(new TripImportError(line, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.lucas.planner.transfer;
+
+import com.lucas.planner.trip.TripService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Endpoints de exportação e importação de viagens em NDJSON (application/x-ndjson).
+ * As exportações são escritas em fluxo, fora da thread da requisição, à medida que o banco entrega as linhas;
+ * as importações leem o corpo em fluxo e gravam em blocos.
+ */
+@RestController
+public class TripTransferController {
+
+    // Tipo de mídia das respostas: um objeto JSON por linha
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private TripExportService tripExportService;
+
+    @Autowired
+    private TripImportService tripImportService;
+
+    /**
+     * Exporta uma viagem com os seus participantes, atividades e links.
+     *
+     * parametro id O UUID da viagem a ser exportada.
+     * returna A viagem em uma linha NDJSON, ou um código de status 404 se a viagem não for encontrada.
+     */
+    @GetMapping(value = "/trips/{id}/export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTrip(@PathVariable UUID id) {
+        // Verifica a existência da viagem pelo cache antes de abrir a resposta
+        if (this.tripService.getTripDetails(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(out -> this.tripExportService.exportTrip(id, out));
+    }
+
+    /**
+     * Exporta todas as viagens, uma linha NDJSON por viagem. Endpoint administrativo.
+     *
+     * returna As viagens em NDJSON.
+     */
+    @GetMapping(value = "/admin/trips/export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAllTrips() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(this.tripExportService::exportAll);
+    }
+
+    /**
+     * Importa viagens em NDJSON, uma por linha com os filhos aninhados. Endpoint administrativo.
+     * Linhas inválidas não interrompem a importação: são puladas e relatadas na resposta.
+     *
+     * parametro body Corpo da requisição no formato da exportação.
+     * returna O resumo da importação com os erros por linha.
+     */
+    @PostMapping(value = "/admin/trips/import", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<TripImportResponse> importTrips(InputStream body) throws IOException {
+        return ResponseEntity.ok(this.tripImportService.importTrips(body));
+    }
+}
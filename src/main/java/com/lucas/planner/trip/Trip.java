@@ -7,7 +7,6 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 
 @Entity
@@ -40,6 +39,12 @@ public class Trip {
     @Column(name = "owner_email", nullable = false)
     private String ownerEmail;
 
+    // Lock otimista da própria viagem, incrementado pelo Hibernate ao salvar destino, datas ou confirmação.
+    // Alterações em participantes, atividades e links são contadas em trip_stats e somadas a ela na revisão (TripData.version)
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     /**
      * Construtor para criar uma instância de Trip a partir dos dados fornecidos.
      *
@@ -50,7 +55,7 @@ public class Trip {
         this.isConfirmed = false;
         this.ownerEmail = data.owner_email();
         this.ownerName = data.owner_name();
-        this.startsAt = LocalDateTime.parse(data.starts_at(), DateTimeFormatter.ISO_DATE_TIME);
-        this.endsAt = LocalDateTime.parse(data.ends_at(), DateTimeFormatter.ISO_DATE_TIME);
+        this.startsAt = data.starts_at();
+        this.endsAt = data.ends_at();
     }
 }
@@ -0,0 +1,40 @@
+package com.lucas.planner.trip;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Leitura de várias viagens em uma requisição. Fica fora do TripController porque o caminho /trips:batchGet
+ * não pode ser combinado com o prefixo /trips/ daquele controlador.
+ */
+@RestController
+public class TripBatchController {
+
+    @Autowired
+    private TripService tripService;
+
+    @Value("${planner.trips.batch-get.max-ids}")
+    private int maxIds;
+
+    /**
+     * Obtém os detalhes de várias viagens de uma vez, pelo cache e, para as que faltarem, em consultas IN em blocos.
+     *
+     * parametro payload Os UUIDs das viagens, no máximo planner.trips.batch-get.max-ids.
+     * returna Resposta HTTP contendo uma entrada por id pedido, na mesma ordem, com found=false nas viagens inexistentes,
+     * ou 400 se a lista faltar, tiver ids nulos ou passar do limite.
+     */
+    @PostMapping("/trips:batchGet")
+    public ResponseEntity<List<TripLookup>> batchGetTrips(@RequestBody TripBatchGetRequest payload) {
+        if (payload.ids() == null || payload.ids().size() > this.maxIds || payload.ids().contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(this.tripService.getTripDetailsBatch(payload.ids()));
+    }
+}
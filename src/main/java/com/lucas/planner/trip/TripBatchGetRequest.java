@@ -0,0 +1,12 @@
+package com.lucas.planner.trip;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Record TripBatchGetRequest com os ids pedidos em POST /trips:batchGet.
+ *
+ * parametro ids Os UUIDs das viagens, na ordem em que devem ser devolvidas.
+ */
+public record TripBatchGetRequest(List<UUID> ids) {
+}
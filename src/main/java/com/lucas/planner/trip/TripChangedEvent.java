@@ -0,0 +1,22 @@
+package com.lucas.planner.trip;
+
+import java.util.UUID;
+
+/**
+ * Record TripChangedEvent publicado pelos serviços depois que uma alteração em uma viagem é gravada.
+ * É repassado aos clientes inscritos em GET /trips/{id}/events.
+ *
+ * parametro trip_id O UUID da viagem alterada.
+ * parametro type O tipo da alteração, por exemplo "activity.created".
+ * parametro resource_id O UUID do registro criado ou alterado, ou nulo em alterações em massa.
+ */
+public record TripChangedEvent(UUID trip_id, String type, UUID resource_id) {
+
+    public static final String TRIP_UPDATED = "trip.updated";
+    public static final String TRIP_CONFIRMED = "trip.confirmed";
+    public static final String ACTIVITY_CREATED = "activity.created";
+    public static final String LINK_CREATED = "link.created";
+    public static final String PARTICIPANT_INVITED = "participant.invited";
+    public static final String PARTICIPANTS_INVITED = "participants.invited";
+    public static final String PARTICIPANT_CONFIRMED = "participant.confirmed";
+}
@@ -1,20 +1,35 @@
 package com.lucas.planner.trip;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.lucas.planner.activity.ActivityConflict;
 import com.lucas.planner.activity.ActivityData;
 import com.lucas.planner.activity.ActivityRequestPayload;
 import com.lucas.planner.activity.ActivityResponse;
 import com.lucas.planner.activity.ActivityService;
+import com.lucas.planner.activity.ActivityTimelineDay;
 import com.lucas.planner.link.LinkData;
 import com.lucas.planner.link.LinkRequestPayload;
 import com.lucas.planner.link.LinkResponse;
 import com.lucas.planner.link.LinkService;
+import com.lucas.planner.pagination.CursorPage;
+import com.lucas.planner.pagination.Cursors;
 import com.lucas.planner.participant.*;
+import com.lucas.planner.time.IsoDateTimes;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -31,12 +46,21 @@ public class TripController {
     @Autowired
     private TripRepository tripRepository;
 
+    @Autowired
+    private TripService tripService;
+
     @Autowired
     private ActivityService activityService;
 
     @Autowired
     private LinkService linkService;
 
+    @Autowired
+    private TripItineraryService tripItineraryService;
+
+    @Autowired
+    private TripEventBroadcaster tripEventBroadcaster;
+
     /**
      * Cria uma nova viagem e registra participantes para a viagem.
      *
@@ -45,19 +69,51 @@ public class TripController {
      */
     @PostMapping
     public ResponseEntity<TripCreatedResponse> createTrip(@RequestBody TripRequestPayload payload){
-        // Cria uma nova instância de Trip a partir dos dados do payload
-        Trip newTrip = new Trip(payload);
-
-        // Salva a nova viagem no banco de dados
-        this.tripRepository.save(newTrip);
-
-        // Registra os participantes na nova viagem
-        this.participantService.registerParticipantsToTrip(payload.emails_to_invite(), newTrip);
+        // Salva a nova viagem, os seus contadores e os participantes convidados
+        Trip newTrip = this.tripService.createTrip(payload);
 
         // Retorna a resposta com o ID da nova viagem
         return ResponseEntity.ok(new TripCreatedResponse(newTrip.getId()));
     }
 
+    /**
+     * Busca viagens por dono, período e prefixo do destino, paginadas por cursor,
+     * das que começam mais tarde para as que começam mais cedo. Ao menos um filtro é obrigatório.
+     *
+     * parametro ownerEmail O email do dono das viagens, comparado depois de normalizado; opcional.
+     * parametro from O início do período (ISO-8601); seleciona as viagens que terminam a partir dele; opcional, junto com to.
+     * parametro to O fim do período (ISO-8601); seleciona as viagens que começam até ele; opcional, junto com from.
+     * parametro destination O prefixo do destino; opcional.
+     * parametro cursor O cursor devolvido pela página anterior; ausente na primeira página.
+     * parametro limit O tamanho da página, limitado a Cursors.MAX_LIMIT.
+     * returna A página de viagens com o cursor da próxima, ou 400 se nenhum filtro for informado, se owner_email ou destination
+     * vierem em branco ou se o período estiver incompleto ou inválido.
+     */
+    @GetMapping
+    public ResponseEntity<CursorPage<TripData>> searchTrips(@RequestParam(name = "owner_email", required = false) String ownerEmail,
+                                                            @RequestParam(required = false) String from,
+                                                            @RequestParam(required = false) String to,
+                                                            @RequestParam(required = false) String destination,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(defaultValue = "50") int limit){
+        TripSearchCriteria criteria;
+        try {
+            criteria = new TripSearchCriteria(ParticipantService.normalizeEmail(ownerEmail), from == null ? null : IsoDateTimes.parse(from), to == null ? null : IsoDateTimes.parse(to), destination);
+        } catch (DateTimeException e) {
+            // Retorna um código de status 400 se alguma das datas não for ISO-8601
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Sem filtro a busca percorreria todas as viagens, e um filtro em branco também: o prefixo vazio cobre o índice
+        // de destinos inteiro. O período vem completo, pois só ends_at >= from não tem índice que o atenda,
+        // e um período invertido não tem resultados possíveis
+        if (criteria.isEmpty() || criteria.hasBlankFilter() || (criteria.from() == null) != (criteria.to() == null) || (criteria.from() != null && criteria.from().isAfter(criteria.to()))) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(this.tripService.searchTrips(criteria, cursor, Cursors.clampLimit(limit)));
+    }
+
     /**
      * Obtém os detalhes de uma viagem específica.
      *
@@ -65,80 +121,99 @@ public class TripController {
      * returna Resposta HTTP contendo os detalhes da viagem ou um código de status 404 se não encontrada.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Trip> getTripDetails(@PathVariable UUID id){
-        // Busca a viagem pelo ID
-        Optional<Trip> trip = this.tripRepository.findById(id);
+    public ResponseEntity<TripData> getTripDetails(@PathVariable UUID id, WebRequest request){
+        // Responde 304 sem consultar nem serializar nada se a versão da viagem não mudou
+        if (this.isNotModified(request, id)) {
+            return null;
+        }
+
+        // Busca a viagem pelo ID, passando pelo cache de viagens
+        Optional<TripData> trip = this.tripService.getTripDetails(id);
 
         // Retorna os detalhes da viagem se encontrada, ou um código 404 se não encontrada
         return trip.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
-     * Atualiza os detalhes de uma viagem existente.
+     * Obtém a viagem junto com participantes, atividades e links em uma única resposta.
      *
-     * parametro id O UUID da viagem a ser atualizada.
-     * parametro payload Dados da solicitação para atualizar a viagem.
-     * returna Resposta HTTP contendo a viagem atualizada ou um código de status 404 se não encontrada.
+     * parametro id O UUID da viagem a ser recuperada.
+     * returna Resposta HTTP contendo o itinerário da viagem ou um código de status 404 se não encontrada.
      */
-    @PutMapping("/{id}")
-    public ResponseEntity<Trip> updateTrip(@PathVariable UUID id, @RequestBody TripRequestPayload payload){
-        // Busca a viagem pelo ID
-        Optional<Trip> trip = this.tripRepository.findById(id);
-
-        if(trip.isPresent()){
-            // Obtém a viagem encontrada
-            Trip rawTrip = trip.get();
+    @GetMapping("/{id}/itinerary")
+    public ResponseEntity<TripItineraryResponse> getTripItinerary(@PathVariable UUID id, WebRequest request){
+        // Responde 304 sem consultar nem serializar nada se a versão da viagem não mudou
+        if (this.isNotModified(request, id)) {
+            return null;
+        }
 
-            // Atualiza os detalhes da viagem com os dados do payload
-            rawTrip.setEndsAt(LocalDateTime.parse(payload.ends_at(), DateTimeFormatter.ISO_DATE_TIME));
-            rawTrip.setStartsAt(LocalDateTime.parse(payload.starts_at(), DateTimeFormatter.ISO_DATE_TIME));
-            rawTrip.setDestination(payload.destination());
+        // Busca a viagem e as coleções filhas
+        Optional<TripItineraryResponse> itinerary = this.tripItineraryService.getItinerary(id);
 
-            // Salva a viagem atualizada no banco de dados
-            this.tripRepository.save(rawTrip);
+        // Retorna o itinerário se a viagem for encontrada, ou um código 404 se não encontrada
+        return itinerary.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-            // Retorna a viagem atualizada
-            return ResponseEntity.ok(rawTrip);
+    /**
+     * Abre um fluxo Server-Sent Events com as alterações da viagem: atividades, links e participantes
+     * criados, além de atualização e confirmação da própria viagem.
+     *
+     * parametro id O UUID da viagem a ser acompanhada.
+     * returna O fluxo de eventos, ou um código de status 404 se a viagem não for encontrada.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTripEvents(@PathVariable UUID id){
+        // Verifica a existência da viagem pelo cache antes de inscrever o cliente
+        if (this.tripService.getTripDetails(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
 
-        // Retorna um código de status 404 se a viagem não for encontrada
-        return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(this.tripEventBroadcaster.subscribe(id));
+    }
+
+    /**
+     * Atualiza os detalhes de uma viagem existente.
+     *
+     * parametro id O UUID da viagem a ser atualizada.
+     * parametro payload Dados da solicitação para atualizar a viagem.
+     * returna Resposta HTTP contendo a viagem atualizada, um código de status 404 se não encontrada
+     * ou 409 se uma alteração simultânea da viagem for gravada primeiro.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<TripData> updateTrip(@PathVariable UUID id, @RequestBody TripRequestPayload payload){
+        try {
+            // Atualiza a viagem, invalidando o cache
+            Optional<TripData> trip = this.tripService.updateTrip(id, payload);
+
+            // Retorna a viagem atualizada, ou um código de status 404 se a viagem não for encontrada
+            return trip.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Retorna um código de status 409 se outra alteração da viagem foi gravada entre a leitura e a gravação desta
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 
     /**
      * Confirma uma viagem e envia emails de confirmação para os participantes.
+     * Confirmar de novo uma viagem já confirmada devolve a viagem sem reenviar os emails.
      *
      * parametro id O UUID da viagem a ser confirmada.
      * returna Resposta HTTP contendo a viagem confirmada ou um código de status 404 se não encontrada.
      */
     @GetMapping("/{id}/confirm")
-    public ResponseEntity<Trip> confirmTrip(@PathVariable UUID id){
-        // Busca a viagem pelo ID
-        Optional<Trip> trip = this.tripRepository.findById(id);
-
-        if(trip.isPresent()){
-            // Obtém a viagem encontrada
-            Trip rawTrip = trip.get();
-
-            // Define o status de confirmação da viagem como verdadeiro
-            rawTrip.setIsConfirmed(true);
+    public ResponseEntity<TripData> confirmTrip(@PathVariable UUID id){
+        // Confirma a viagem, invalidando o cache e enfileirando os emails de confirmação
+        Optional<TripData> trip = this.tripService.confirmTrip(id);
 
-            // Salva a viagem confirmada no banco de dados
-            this.tripRepository.save(rawTrip);
-
-            // Envia email de confirmação para todos os participantes da viagem
-            this.participantService.triggerConfirmationEmailToParticipants(id);
-
-            // Retorna a viagem confirmada
-            return ResponseEntity.ok(rawTrip);
-        }
-
-        // Retorna um código de status 404 se a viagem não for encontrada
-        return ResponseEntity.notFound().build();
+        // Retorna a viagem confirmada, ou um código de status 404 se a viagem não for encontrada
+        return trip.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
      * Convida um novo participante para uma viagem.
+     * A viagem não é carregada: o participante é inserido com uma referência a ela,
+     * e uma viagem inexistente é detectada pela violação da chave estrangeira.
+     * Convidar de novo um email que já participa da viagem devolve o participante existente sem alterar nada.
      *
      * parametro id O UUID da viagem para a qual o participante será convidado.
      * parametro payload Dados da solicitação para convidar um participante.
@@ -146,29 +221,83 @@ public class TripController {
      */
     @PostMapping("/{id}/invite")
     public ResponseEntity<ParticipantCreateResponse> inviteParticipant(@PathVariable UUID id, @RequestBody ParticipantRequestPayload payload) {
+        try {
+            // Registra o novo participante na viagem
+            ParticipantInvitation invitation = this.participantService.registerParticipantToTrip(payload.email(), this.tripRepository.getReferenceById(id));
+
+            if (invitation.created()) {
+                // Invalida a viagem no cache; a revisão, base da ETag das leituras, já mudou com o contador de alterações da viagem
+                this.tripService.touch(id);
+
+                // Se a viagem já estiver confirmada, envia um email de confirmação para o participante
+                this.participantService.triggerConfirmationEmailToParticipant(id, payload.email());
+            }
+
+            // Retorna a resposta com o ID do participante
+            return ResponseEntity.ok(new ParticipantCreateResponse(invitation.id()));
+        } catch (DataIntegrityViolationException e) {
+            // Retorna um código de status 404 se a viagem não for encontrada
+            return notFoundIfMissingTrip(e);
+        }
+    }
+
+    /**
+     * Convida em massa uma lista de emails para uma viagem.
+     * O corpo é lido incrementalmente, então listas grandes não são carregadas inteiras em memória.
+     *
+     * parametro id O UUID da viagem para a qual os participantes serão convidados.
+     * parametro emails Corpo da requisição contendo um array JSON de emails.
+     * returna Resposta HTTP contendo o resumo do convite ou um código de status 404 se a viagem não for encontrada.
+     */
+    @PostMapping("/{id}/invites:bulk")
+    public ResponseEntity<ParticipantBulkInviteResponse> bulkInviteParticipants(@PathVariable UUID id, InputStream emails) throws IOException {
         // Busca a viagem pelo ID
         Optional<Trip> trip = this.tripRepository.findById(id);
 
         if(trip.isPresent()){
-            // Obtém a viagem encontrada
-            Trip rawTrip = trip.get();
-
-            // Registra o novo participante na viagem
-            ParticipantCreateResponse participantResponse = this.participantService.registerParticipantToTrip(payload.email(), rawTrip);
-
-            // Se a viagem já estiver confirmada, envia um email de confirmação para o participante
-            if(rawTrip.getIsConfirmed()) {
-                this.participantService.triggerConfirmationEmailToParticipant(payload.email());
+            try {
+                // Registra os participantes na viagem
+                ParticipantBulkInviteResponse response = this.participantService.bulkInviteParticipants(trip.get(), emails);
+
+                // Invalida a viagem no cache; a revisão, base da ETag das leituras, já mudou com o contador de alterações da viagem
+                this.tripService.touch(id);
+
+                // Retorna o resumo do convite
+                return ResponseEntity.ok(response);
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                // Corpo que não é um array JSON de emails; nada foi gravado
+                return ResponseEntity.badRequest().build();
             }
-
-            // Retorna a resposta com o ID do participante criado
-            return ResponseEntity.ok(participantResponse);
         }
 
         // Retorna um código de status 404 se a viagem não for encontrada
         return ResponseEntity.notFound().build();
     }
 
+    /**
+     * Confirma a presença (RSVP) de um convidado da viagem, identificado pelo email do convite.
+     * A confirmação é uma única instrução UPDATE condicional, sem carregar o participante, e pode ser repetida com segurança.
+     *
+     * parametro id O UUID da viagem.
+     * parametro payload Email do convidado e, opcionalmente, o nome a registrar.
+     * returna Resposta HTTP contendo os dados do participante confirmado, 400 sem email ou 404 se o email não foi convidado para a viagem.
+     */
+    @PostMapping("/{id}/rsvp")
+    public ResponseEntity<ParticipantData> confirmParticipant(@PathVariable UUID id, @RequestBody ParticipantRequestPayload payload) {
+        if (payload.email() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Optional<ParticipantConfirmation> confirmation = this.participantService.confirmParticipant(id, payload.email(), payload.name());
+
+        // Só uma confirmação que alterou o participante muda a revisão; retentativas não invalidam o cache
+        if (confirmation.map(ParticipantConfirmation::changed).orElse(false)) {
+            this.tripService.touch(id);
+        }
+
+        return confirmation.map(result -> ResponseEntity.ok(result.participant())).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * Obtém todos os participantes associados a uma viagem específica.
      *
@@ -176,7 +305,12 @@ public class TripController {
      * returna Resposta HTTP contendo a lista de participantes da viagem.
      */
     @GetMapping("/{id}/participants")
-    public ResponseEntity<List<ParticipantData>> getAllParticipants(@PathVariable UUID id){
+    public ResponseEntity<List<ParticipantData>> getAllParticipants(@PathVariable UUID id, WebRequest request){
+        // Responde 304 sem consultar nem serializar nada se a versão da viagem não mudou
+        if (this.isNotModified(request, id)) {
+            return null;
+        }
+
         // Obtém a lista de participantes associados à viagem
         List<ParticipantData> participantList = this.participantService.getAllParticipantsFromTrip(id);
 
@@ -184,31 +318,63 @@ public class TripController {
         return ResponseEntity.ok(participantList);
     }
 
+    /**
+     * Obtém uma página dos participantes de uma viagem específica, paginada por cursor.
+     *
+     * parametro id O UUID da viagem para a qual os participantes serão recuperados.
+     * parametro cursor O cursor devolvido pela página anterior; ausente na primeira página.
+     * parametro limit O tamanho da página, limitado a Cursors.MAX_LIMIT.
+     * returna Resposta HTTP contendo a página de participantes e o cursor da próxima página.
+     */
+    @GetMapping(value = "/{id}/participants", params = "limit")
+    public ResponseEntity<CursorPage<ParticipantData>> getParticipantsPage(@PathVariable UUID id, @RequestParam(required = false) String cursor, @RequestParam int limit, WebRequest request){
+        // Responde 304 sem consultar nem serializar nada se a versão da viagem não mudou
+        if (this.isNotModified(request, id)) {
+            return null;
+        }
+
+        // Obtém a página de participantes associados à viagem
+        CursorPage<ParticipantData> page = this.participantService.getParticipantsPageFromTrip(id, cursor, Cursors.clampLimit(limit));
+
+        // Retorna a página de participantes
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Adiciona uma nova atividade a uma viagem específica.
+     * As datas da viagem vêm do cache de viagens, para conferir se a atividade cabe no período;
+     * a viagem em si não é carregada, e a atividade é inserida com uma referência a ela.
+     * Os conflitos da resposta são de melhor esforço: o índice em memória só recebe uma atividade depois do commit,
+     * então duas atividades sobrepostas criadas ao mesmo tempo podem não aparecer uma nos conflitos da outra.
+     * GET /trips/{id}/activities/conflicts, lido depois dos commits, lista o par.
      *
      * parametro id O UUID da viagem para a qual a atividade será adicionada.
      * parametro payload Dados da solicitação para adicionar uma nova atividade.
-     * returna Resposta HTTP contendo o ID da atividade criada ou um código de status 404 se a viagem não for encontrada.
+     * returna Resposta HTTP contendo o ID da atividade criada e os conflitos encontrados, um código de status 404
+     * se a viagem não for encontrada ou 400 se a atividade sair do período da viagem.
      */
     @PostMapping("/{id}/activities")
     public ResponseEntity<ActivityResponse> addActivity(@PathVariable UUID id, @RequestBody ActivityRequestPayload payload) {
-        // Busca a viagem pelo ID
-        Optional<Trip> trip = this.tripRepository.findById(id);
+        Optional<TripData> trip = this.tripService.getTripDetails(id);
 
-        if(trip.isPresent()){
-            // Obtém a viagem encontrada
-            Trip rawTrip = trip.get();
+        if (trip.isEmpty()) {
+            // Retorna um código de status 404 se a viagem não for encontrada
+            return ResponseEntity.notFound().build();
+        }
 
+        try {
             // Registra a nova atividade na viagem
-            ActivityResponse activityResponse = this.activityService.registerActivity(payload, rawTrip);
+            ActivityResponse activityResponse = this.activityService.registerActivity(payload, trip.get());
+
+            // Invalida a viagem no cache; a revisão, base da ETag das leituras, já mudou com o contador de alterações da viagem
+            this.tripService.touch(id);
 
             // Retorna a resposta com o ID da nova atividade
             return ResponseEntity.ok(activityResponse);
+        } catch (DataIntegrityViolationException e) {
+            // Retorna um código de status 404 se a viagem tiver sido removida depois da leitura
+            return notFoundIfMissingTrip(e);
         }
-
-        // Retorna um código de status 404 se a viagem não for encontrada
-        return ResponseEntity.notFound().build();
     }
 
     /**
@@ -218,7 +384,12 @@ public class TripController {
      * returna Resposta HTTP contendo a lista de atividades da viagem.
      */
     @GetMapping("/{id}/activities")
-    public ResponseEntity<List<ActivityData>> getAllActivities(@PathVariable UUID id){
+    public ResponseEntity<List<ActivityData>> getAllActivities(@PathVariable UUID id, WebRequest request){
+        // Responde 304 sem consultar nem serializar nada se a versão da viagem não mudou
+        if (this.isNotModified(request, id)) {
+            return null;
+        }
+
         // Obtém a lista de atividades associadas à viagem
         List<ActivityData> activityDataList = this.activityService.getAllActivitiesFromId(id);
 
@@ -226,8 +397,87 @@ public class TripController {
         return ResponseEntity.ok(activityDataList);
     }
 
+    /**
+     * Obtém uma página das atividades de uma viagem específica, paginada por cursor.
+     *
+     * parametro id O UUID da viagem para a qual as atividades serão recuperadas.
+     * parametro cursor O cursor devolvido pela página anterior; ausente na primeira página.
+     * parametro limit O tamanho da página, limitado a Cursors.MAX_LIMIT.
+     * returna Resposta HTTP contendo a página de atividades e o cursor da próxima página.
+     */
+    @GetMapping(value = "/{id}/activities", params = "limit")
+    public ResponseEntity<CursorPage<ActivityData>> getActivitiesPage(@PathVariable UUID id, @RequestParam(required = false) String cursor, @RequestParam int limit, WebRequest request){
+        // Responde 304 sem consultar nem serializar nada se a versão da viagem não mudou
+        if (this.isNotModified(request, id)) {
+            return null;
+        }
+
+        // Obtém a página de atividades associadas à viagem
+        CursorPage<ActivityData> page = this.activityService.getActivitiesPageFromId(id, cursor, Cursors.clampLimit(limit));
+
+        // Retorna a página de atividades
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Obtém a linha do tempo das atividades de uma viagem: um item por dia da viagem, inclusive os dias vazios.
+     * Os horários das viagens e atividades são gravados em UTC; sem zone, os dias e horários da resposta ficam em UTC.
+     * Todas as atividades aparecem: as que caem fora do período, depois de uma alteração das datas da viagem,
+     * acrescentam os seus dias antes ou depois do período.
+     *
+     * parametro id O UUID da viagem.
+     * parametro zone O fuso em que os dias são contados e os horários devolvidos (por exemplo, America/Sao_Paulo); opcional.
+     * returna Os dias da viagem com as suas atividades, 404 se a viagem não for encontrada ou 400 se o fuso for inválido
+     * ou se a linha do tempo passar de planner.activities.timeline.max-days dias.
+     */
+    @GetMapping("/{id}/activities/timeline")
+    public ResponseEntity<List<ActivityTimelineDay>> getActivitiesTimeline(@PathVariable UUID id, @RequestParam(required = false) String zone, WebRequest request){
+        ZoneId zoneId;
+        try {
+            zoneId = zone == null ? null : ZoneId.of(zone);
+        } catch (DateTimeException e) {
+            // Retorna um código de status 400 se o fuso não existir
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Responde 304 sem consultar nem serializar nada se a versão da viagem não mudou
+        if (this.isNotModified(request, id)) {
+            return null;
+        }
+
+        // Busca as datas da viagem pelo cache e monta a linha do tempo dentro desse período
+        Optional<List<ActivityTimelineDay>> timeline = this.tripService.getTripDetails(id)
+                .map(trip -> this.activityService.getTimelineFromId(id, trip.startsAt(), trip.endsAt(), zoneId));
+
+        // Retorna a linha do tempo se a viagem for encontrada, ou um código 404 se não encontrada
+        return timeline.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Obtém os pares de atividades de uma viagem que se sobrepõem no tempo.
+     *
+     * parametro id O UUID da viagem.
+     * returna Os conflitos entre as atividades da viagem, ou um código de status 404 se a viagem não for encontrada.
+     */
+    @GetMapping("/{id}/activities/conflicts")
+    public ResponseEntity<List<ActivityConflict>> getActivityConflicts(@PathVariable UUID id, WebRequest request){
+        // Responde 304 sem consultar nem serializar nada se a versão da viagem não mudou
+        if (this.isNotModified(request, id)) {
+            return null;
+        }
+
+        // Verifica a existência da viagem pelo cache e lê os conflitos do índice em memória da viagem
+        Optional<List<ActivityConflict>> conflicts = this.tripService.getTripDetails(id)
+                .map(trip -> this.activityService.getConflictsFromId(id));
+
+        // Retorna os conflitos se a viagem for encontrada, ou um código 404 se não encontrada
+        return conflicts.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * Registra um novo link associado a uma viagem específica.
+     * A viagem não é carregada: o link é inserido com uma referência a ela,
+     * e uma viagem inexistente é detectada pela violação da chave estrangeira.
      *
      * parametro id O UUID da viagem para a qual o link será registrado.
      * parametro payload Dados da solicitação para registrar um novo link.
@@ -235,22 +485,19 @@ public class TripController {
      */
     @PostMapping("/{id}/links")
     public ResponseEntity<LinkResponse> registerLink(@PathVariable UUID id, @RequestBody LinkRequestPayload payload) {
-        // Busca a viagem pelo ID
-        Optional<Trip> trip = this.tripRepository.findById(id);
-
-        if(trip.isPresent()){
-            // Obtém a viagem encontrada
-            Trip rawTrip = trip.get();
-
+        try {
             // Registra o novo link na viagem
-            LinkResponse linkResponse = this.linkService.registerLink(payload, rawTrip);
+            LinkResponse linkResponse = this.linkService.registerLink(payload, this.tripRepository.getReferenceById(id));
+
+            // Invalida a viagem no cache; a revisão, base da ETag das leituras, já mudou com o contador de alterações da viagem
+            this.tripService.touch(id);
 
             // Retorna a resposta com o ID do novo link
             return ResponseEntity.ok(linkResponse);
+        } catch (DataIntegrityViolationException e) {
+            // Retorna um código de status 404 se a viagem não for encontrada
+            return notFoundIfMissingTrip(e);
         }
-
-        // Retorna um código de status 404 se a viagem não for encontrada
-        return ResponseEntity.notFound().build();
     }
 
     /**
@@ -260,11 +507,69 @@ public class TripController {
      * returna Resposta HTTP contendo a lista de links da viagem.
      */
     @GetMapping("/{id}/links")
-    public ResponseEntity<List<LinkData>> getAllLinks(@PathVariable UUID id){
+    public ResponseEntity<List<LinkData>> getAllLinks(@PathVariable UUID id, WebRequest request){
+        // Responde 304 sem consultar nem serializar nada se a versão da viagem não mudou
+        if (this.isNotModified(request, id)) {
+            return null;
+        }
+
         // Obtém a lista de links associados à viagem
         List<LinkData> linkDataList = this.linkService.getAllLinksFromId(id);
 
         // Retorna a lista de links
         return ResponseEntity.ok(linkDataList);
     }
+
+    /**
+     * Obtém uma página dos links de uma viagem específica, paginada por cursor.
+     *
+     * parametro id O UUID da viagem para a qual os links serão recuperados.
+     * parametro cursor O cursor devolvido pela página anterior; ausente na primeira página.
+     * parametro limit O tamanho da página, limitado a Cursors.MAX_LIMIT.
+     * returna Resposta HTTP contendo a página de links e o cursor da próxima página.
+     */
+    @GetMapping(value = "/{id}/links", params = "limit")
+    public ResponseEntity<CursorPage<LinkData>> getLinksPage(@PathVariable UUID id, @RequestParam(required = false) String cursor, @RequestParam int limit, WebRequest request){
+        // Responde 304 sem consultar nem serializar nada se a versão da viagem não mudou
+        if (this.isNotModified(request, id)) {
+            return null;
+        }
+
+        // Obtém a página de links associados à viagem
+        CursorPage<LinkData> page = this.linkService.getLinksPageFromId(id, cursor, Cursors.clampLimit(limit));
+
+        // Retorna a página de links
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Converte a violação da chave estrangeira trip_id, causada por uma viagem inexistente, em 404.
+     * Qualquer outra violação de integridade é propagada.
+     *
+     * parametro e A exceção lançada ao inserir o registro filho.
+     * returna Resposta HTTP com o código de status 404.
+     */
+    private static <T> ResponseEntity<T> notFoundIfMissingTrip(DataIntegrityViolationException e) {
+        // 23503 é o SQLState padrão de violação de chave estrangeira; o H2 usa 23506 quando a linha pai não existe
+        if (e.getCause() instanceof ConstraintViolationException violation
+                && ("23503".equals(violation.getSQLState()) || "23506".equals(violation.getSQLState()))) {
+            return ResponseEntity.notFound().build();
+        }
+
+        throw e;
+    }
+
+    /**
+     * Verifica a requisição condicional (If-None-Match) contra a revisão da viagem, obtida pelo cache.
+     * Quando a revisão não mudou, a resposta já sai como 304 com a ETag, sem corpo.
+     *
+     * parametro request A requisição atual.
+     * parametro tripId O UUID da viagem.
+     * returna Verdadeiro se o cliente já tem a representação atual.
+     */
+    private boolean isNotModified(WebRequest request, UUID tripId) {
+        return this.tripService.getTripDetails(tripId)
+                .map(trip -> request.checkNotModified(String.valueOf(trip.version())))
+                .orElse(false);
+    }
 }
@@ -0,0 +1,13 @@
+package com.lucas.planner.trip;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Record TripData com um retrato imutável de uma viagem.
+ * É o que fica no cache de viagens e o que os endpoints serializam, no lugar da entidade gerenciada.
+ * A versão é a revisão da viagem, base das ETags: a versão da linha trips somada às alterações
+ * dos filhos contadas nas faixas de trip_stats (ver TripRepository.SELECT_DATA).
+ */
+public record TripData(UUID id, String destination, LocalDateTime startsAt, LocalDateTime endsAt, Boolean isConfirmed, String ownerName, String ownerEmail, Long version) {
+}
@@ -0,0 +1,146 @@
+package com.lucas.planner.trip;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Distribui os TripChangedEvent para os clientes inscritos via Server-Sent Events.
+ *
+ * Cada inscrito tem um buffer limitado e uma virtual thread própria que o esvazia no SseEmitter.
+ * Quem publica só faz offer no buffer, então um cliente lento nunca bloqueia as escritas:
+ * quando o buffer de um inscrito enche, a conexão dele é encerrada e o cliente deve reconectar e reler o estado.
+ * A quantidade de inscritos é exportada no gauge planner.events.subscribers.
+ */
+@Component
+public class TripEventBroadcaster {
+
+    private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final int bufferSize;
+
+    private final Duration timeout;
+
+    public TripEventBroadcaster(@Value("${planner.events.buffer-size}") int bufferSize,
+                                @Value("${planner.events.timeout}") Duration timeout,
+                                MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+
+        Gauge.builder("planner.events.subscribers", this.subscribers, map -> map.values().stream().mapToInt(Set::size).sum())
+                .description("Clientes inscritos no feed de eventos das viagens")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Inscreve um novo cliente nos eventos de uma viagem.
+     *
+     * parametro tripId O UUID da viagem.
+     * returna O SseEmitter que será devolvido ao cliente.
+     */
+    public SseEmitter subscribe(UUID tripId) {
+        SseEmitter emitter = new SseEmitter(this.timeout.toMillis());
+        Subscriber subscriber = new Subscriber(tripId, emitter, new ArrayBlockingQueue<>(this.bufferSize));
+
+        // A thread de envio existe antes de qualquer caminho de cancelamento, que precisa interrompê-la
+        subscriber.sender = Thread.ofVirtual().name("trip-events-" + tripId).start(() -> this.drain(subscriber));
+
+        emitter.onCompletion(() -> this.unsubscribe(subscriber));
+        emitter.onTimeout(() -> this.unsubscribe(subscriber));
+        emitter.onError(error -> this.unsubscribe(subscriber));
+
+        this.subscribers.computeIfAbsent(tripId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        // O Spring só escreve os cabeçalhos da resposta na primeira escrita: um comentário inicial, enviado depois da inscrição,
+        // avisa o cliente de que já recebe os eventos e faz uma conexão morta falhar logo, não só no primeiro evento
+        try {
+            emitter.send(SseEmitter.event().comment("inscrito"));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+
+        return emitter;
+    }
+
+    /**
+     * Recebe os eventos publicados pelos serviços. Dentro de uma transação, só roda depois do commit;
+     * fora dela, roda logo após a publicação, que já acontece depois da gravação.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        Set<Subscriber> tripSubscribers = this.subscribers.get(event.trip_id());
+
+        if (tripSubscribers == null) {
+            return;
+        }
+
+        for (Subscriber subscriber : tripSubscribers) {
+            if (!subscriber.buffer.offer(event)) {
+                // Buffer cheio: o cliente não está acompanhando, então a conexão é encerrada
+                subscriber.emitter.complete();
+                this.unsubscribe(subscriber);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                TripChangedEvent event = subscriber.buffer.take();
+                subscriber.emitter.send(SseEmitter.event().name(event.type()).data(event));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado ou emitter já encerrado: encerra a requisição assíncrona com o erro,
+            // para que o Tomcat libere a conexão em vez de esperar o timeout do emitter
+            try {
+                subscriber.emitter.completeWithError(e);
+            } catch (IllegalStateException alreadyFailed) {
+                // O container já encerrou a requisição com erro e não aceita mais chamadas de fora das suas threads
+            }
+            this.unsubscribe(subscriber);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        this.subscribers.computeIfPresent(subscriber.tripId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+
+        subscriber.sender.interrupt();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private static final class Subscriber {
+
+        private final UUID tripId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<TripChangedEvent> buffer;
+        private volatile Thread sender;
+
+        private Subscriber(UUID tripId, SseEmitter emitter, BlockingQueue<TripChangedEvent> buffer) {
+            this.tripId = tripId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+}
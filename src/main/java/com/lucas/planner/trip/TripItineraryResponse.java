@@ -0,0 +1,18 @@
+package com.lucas.planner.trip;
+
+import com.lucas.planner.activity.ActivityData;
+import com.lucas.planner.link.LinkData;
+import com.lucas.planner.participant.ParticipantData;
+
+import java.util.List;
+
+/**
+ * Record TripItineraryResponse para encapsular a viagem e todos os seus dados filhos em uma única resposta.
+ *
+ * parametro trip A viagem.
+ * parametro participants Os participantes da viagem.
+ * parametro activities As atividades da viagem.
+ * parametro links Os links da viagem.
+ */
+public record TripItineraryResponse(TripData trip, List<ParticipantData> participants, List<ActivityData> activities, List<LinkData> links) {
+}
@@ -0,0 +1,105 @@
+package com.lucas.planner.trip;
+
+import com.lucas.planner.activity.ActivityData;
+import com.lucas.planner.activity.ActivityService;
+import com.lucas.planner.link.LinkData;
+import com.lucas.planner.link.LinkService;
+import com.lucas.planner.participant.ParticipantData;
+import com.lucas.planner.participant.ParticipantService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serviço responsável por montar o itinerário completo de uma viagem em uma única chamada.
+ */
+@Service
+@Timed("planner.service")
+public class TripItineraryService {
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private ParticipantService participantService;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private LinkService linkService;
+
+    // Executor usado para buscar as coleções filhas em paralelo; cada consulta roda fora de transação,
+    // com o seu próprio EntityManager, então não há estado compartilhado entre as threads
+    private final AsyncTaskExecutor executor;
+
+    private final ExecutorService threads;
+
+    /**
+     * O itinerário tem um executor só seu, separado do executor da aplicação (usado pelo MVC assíncrono e pela exportação).
+     * Com virtual threads é uma virtual thread por consulta, e o pool de conexões limita a concorrência;
+     * sem elas é um pool fixo com fila limitada, e quando a fila enche a consulta roda na própria thread da requisição,
+     * o que segura a requisição em vez de acumular tarefas.
+     *
+     * parametro virtualThreads O valor de spring.threads.virtual.enabled.
+     * parametro threads Threads do pool fixo, sem virtual threads.
+     * parametro queueCapacity Consultas aguardando no pool fixo antes de rodarem na thread da requisição.
+     * parametro taskDecorator O mesmo decorador do executor da aplicação, que leva o contador e o trace de SQL da requisição às consultas.
+     */
+    public TripItineraryService(@Value("${spring.threads.virtual.enabled}") boolean virtualThreads,
+                                @Value("${planner.itinerary.threads}") int threads,
+                                @Value("${planner.itinerary.queue-capacity}") int queueCapacity,
+                                TaskDecorator taskDecorator) {
+        this.threads = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("itinerary-", 0).factory())
+                : new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                        Thread.ofPlatform().name("itinerary-", 0).daemon().factory(), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        TaskExecutorAdapter adapter = new TaskExecutorAdapter(this.threads);
+        adapter.setTaskDecorator(taskDecorator);
+        this.executor = adapter;
+    }
+
+    /**
+     * Obtém a viagem junto com participantes, atividades e links.
+     * São executadas no máximo quatro consultas: a viagem, quando não está no cache, e, em paralelo, uma por coleção filha.
+     *
+     * parametro tripId O UUID da viagem.
+     * returna O itinerário da viagem, ou vazio se a viagem não existir.
+     */
+    public Optional<TripItineraryResponse> getItinerary(UUID tripId) {
+        // Busca a viagem primeiro (pelo cache) para não disparar as consultas filhas quando ela não existe
+        Optional<TripData> trip = this.tripService.getTripDetails(tripId);
+
+        if (trip.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Dispara as três consultas filhas em paralelo
+        CompletableFuture<List<ParticipantData>> participants = CompletableFuture.supplyAsync(() -> this.participantService.getAllParticipantsFromTrip(tripId), this.executor);
+        CompletableFuture<List<ActivityData>> activities = CompletableFuture.supplyAsync(() -> this.activityService.getAllActivitiesFromId(tripId), this.executor);
+        CompletableFuture<List<LinkData>> links = CompletableFuture.supplyAsync(() -> this.linkService.getAllLinksFromId(tripId), this.executor);
+
+        return Optional.of(new TripItineraryResponse(trip.get(), participants.join(), activities.join(), links.join()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.threads.shutdown();
+    }
+}
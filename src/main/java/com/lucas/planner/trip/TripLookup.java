@@ -0,0 +1,13 @@
+package com.lucas.planner.trip;
+
+import java.util.UUID;
+
+/**
+ * Record TripLookup com o resultado da busca de uma viagem em POST /trips:batchGet.
+ *
+ * parametro id O UUID pedido.
+ * parametro found Indica se a viagem existe.
+ * parametro trip Os dados da viagem, ou nulo se ela não foi encontrada.
+ */
+public record TripLookup(UUID id, boolean found, TripData trip) {
+}
@@ -1,8 +1,48 @@
 package com.lucas.planner.trip;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface TripRepository extends JpaRepository<Trip, UUID> {
+public interface TripRepository extends JpaRepository<Trip, UUID>, TripSearchRepository {
+
+    // Projeção em TripData com a revisão da viagem: a versão da linha trips mais as alterações dos filhos,
+    // somadas sobre as faixas de trip_stats pela chave primária (trip_id, stripe)
+    String SELECT_DATA = "select new com.lucas.planner.trip.TripData(t.id, t.destination, t.startsAt, t.endsAt, t.isConfirmed, t.ownerName, t.ownerEmail, "
+            + "t.version + coalesce((select sum(s.changes) from TripStatsStripe s where s.tripId = t.id), 0L)) from Trip t";
+
+    // Leitura de uma viagem para o cache de viagens, servida pela chave primária
+    @Query(SELECT_DATA + " where t.id = :id")
+    Optional<TripData> findDataById(@Param("id") UUID id);
+
+    // Confirma a viagem só se ela ainda não estiver confirmada, incrementando a versão como uma gravação do Hibernate faria;
+    // retorna 1 na confirmação e 0 se a viagem não existe ou já estava confirmada. Confirmações simultâneas esperam o lock
+    // da linha e, com a condição reavaliada, só a primeira altera a viagem
+    @Transactional
+    @Modifying
+    @Query("update Trip t set t.isConfirmed = true, t.version = t.version + 1 where t.id = :id and t.isConfirmed = false")
+    int confirm(@Param("id") UUID id);
+
+    // Leitura em lote de POST /trips:batchGet, projetada em TripData e servida pela chave primária
+    @Query(SELECT_DATA + " where t.id in :ids")
+    List<TripData> findDataByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Leituras em fluxo para a exportação NDJSON, projetadas em TripData e ordenadas por id
+    @Query("select new com.lucas.planner.trip.TripData(t.id, t.destination, t.startsAt, t.endsAt, t.isConfirmed, t.ownerName, t.ownerEmail, t.version) from Trip t where t.id = :id")
+    Stream<TripData> streamDataById(@Param("id") UUID id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.lucas.planner.trip.TripData(t.id, t.destination, t.startsAt, t.endsAt, t.isConfirmed, t.ownerName, t.ownerEmail, t.version) from Trip t order by t.id")
+    Stream<TripData> streamAllData();
 }
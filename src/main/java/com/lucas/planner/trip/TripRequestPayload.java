@@ -1,6 +1,13 @@
 package com.lucas.planner.trip;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.lucas.planner.time.IsoLocalDateTimeDeserializer;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
-public record TripRequestPayload(String destination, String starts_at, String ends_at, List<String> emails_to_invite, String owner_email, String owner_name) {
+public record TripRequestPayload(String destination,
+                                 @JsonDeserialize(using = IsoLocalDateTimeDeserializer.class) LocalDateTime starts_at,
+                                 @JsonDeserialize(using = IsoLocalDateTimeDeserializer.class) LocalDateTime ends_at,
+                                 List<String> emails_to_invite, String owner_email, String owner_name) {
 }
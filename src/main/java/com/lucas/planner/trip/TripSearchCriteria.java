@@ -0,0 +1,21 @@
+package com.lucas.planner.trip;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record TripSearchCriteria com os filtros de GET /trips; filtros nulos não restringem a busca.
+ * from e to, informados juntos, selecionam as viagens que se sobrepõem ao período (ends_at >= from e starts_at <= to)
+ * e destinationPrefix, as viagens cujo destino começa com o texto informado.
+ */
+public record TripSearchCriteria(String ownerEmail, LocalDateTime from, LocalDateTime to, String destinationPrefix) {
+
+    // Retorna verdadeiro quando nenhum filtro foi informado
+    public boolean isEmpty() {
+        return ownerEmail == null && from == null && to == null && destinationPrefix == null;
+    }
+
+    // Retorna verdadeiro quando um filtro de texto foi informado em branco, como em ?destination=
+    public boolean hasBlankFilter() {
+        return (ownerEmail != null && ownerEmail.isBlank()) || (destinationPrefix != null && destinationPrefix.isBlank());
+    }
+}
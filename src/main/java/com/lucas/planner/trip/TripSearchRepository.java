@@ -0,0 +1,35 @@
+package com.lucas.planner.trip;
+
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Busca de viagens por dono, período e prefixo do destino, com paginação keyset em (starts_at desc, id desc).
+ * A consulta é montada só com os filtros informados, para que o H2 escolha o índice do filtro presente
+ * (owner_email, starts_at), (starts_at, ends_at) ou (destination) em vez de avaliar condições opcionais linha a linha.
+ */
+public interface TripSearchRepository {
+
+    /**
+     * Primeira página da busca, das viagens que começam mais tarde para as que começam mais cedo.
+     *
+     * parametro criteria Os filtros da busca.
+     * parametro limit Quantidade máxima de linhas.
+     * returna As viagens encontradas, projetadas em TripData.
+     */
+    List<TripData> searchDataPage(TripSearchCriteria criteria, Limit limit);
+
+    /**
+     * Página seguinte da busca, a partir da chave (starts_at, id) do último item já entregue.
+     *
+     * parametro criteria Os filtros da busca.
+     * parametro startsAt O starts_at do último item entregue.
+     * parametro beforeId O id do último item entregue.
+     * parametro limit Quantidade máxima de linhas.
+     * returna As viagens encontradas, projetadas em TripData.
+     */
+    List<TripData> searchDataPageAfter(TripSearchCriteria criteria, LocalDateTime startsAt, UUID beforeId, Limit limit);
+}
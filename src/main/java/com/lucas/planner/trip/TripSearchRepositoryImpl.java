@@ -0,0 +1,76 @@
+package com.lucas.planner.trip;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Implementação de TripSearchRepository, incorporada ao TripRepository pelo Spring Data.
+ */
+class TripSearchRepositoryImpl implements TripSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TripData> searchDataPage(TripSearchCriteria criteria, Limit limit) {
+        return this.search(criteria, null, null, limit);
+    }
+
+    @Override
+    public List<TripData> searchDataPageAfter(TripSearchCriteria criteria, LocalDateTime startsAt, UUID beforeId, Limit limit) {
+        return this.search(criteria, startsAt, beforeId, limit);
+    }
+
+    private List<TripData> search(TripSearchCriteria criteria, LocalDateTime startsAt, UUID beforeId, Limit limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        if (criteria.ownerEmail() != null) {
+            conditions.add("t.ownerEmail = :ownerEmail");
+            parameters.put("ownerEmail", criteria.ownerEmail());
+        }
+        if (criteria.to() != null) {
+            conditions.add("t.startsAt <= :to");
+            parameters.put("to", criteria.to());
+        }
+        if (criteria.from() != null) {
+            conditions.add("t.endsAt >= :from");
+            parameters.put("from", criteria.from());
+        }
+        if (criteria.destinationPrefix() != null) {
+            // Prefixo como intervalo e não como LIKE: com o valor em parâmetro, o H2 só monta o intervalo
+            // do índice a partir de comparações, e o texto não precisa de escape para % e _
+            conditions.add("t.destination >= :destination and t.destination < :destinationEnd");
+            parameters.put("destination", criteria.destinationPrefix());
+            parameters.put("destinationEnd", criteria.destinationPrefix() + Character.MAX_VALUE);
+        }
+        if (startsAt != null) {
+            // O limite explícito em starts_at estreita o intervalo lido do índice; o OR só desempata pelo id
+            conditions.add("t.startsAt <= :afterStartsAt and (t.startsAt < :afterStartsAt or t.id < :beforeId)");
+            parameters.put("afterStartsAt", startsAt);
+            parameters.put("beforeId", beforeId);
+        }
+
+        String jpql = TripRepository.SELECT_DATA
+                + (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions))
+                + " order by t.startsAt desc, t.id desc";
+
+        TypedQuery<TripData> query = this.entityManager.createQuery(jpql, TripData.class);
+        parameters.forEach(query::setParameter);
+
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+
+        return query.getResultList();
+    }
+}
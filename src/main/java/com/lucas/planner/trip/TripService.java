@@ -0,0 +1,283 @@
+package com.lucas.planner.trip;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.lucas.planner.pagination.CursorPage;
+import com.lucas.planner.pagination.Cursors;
+import com.lucas.planner.participant.ParticipantService;
+import com.lucas.planner.stats.TripStatsService;
+import com.lucas.planner.time.IsoDateTimes;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Serviço responsável pela leitura e alteração de viagens.
+ * As leituras passam pelo cache "trips"; toda alteração invalida a entrada da viagem depois do commit.
+ * Uma leitura do banco só entra no cache se nenhuma invalidação da viagem aconteceu desde antes da consulta,
+ * e gravação e invalidação passam pelo mesmo compute atômico por chave do Caffeine: um retrato lido antes
+ * do commit de uma escrita nunca volta ao cache depois da invalidação dela.
+ */
+@Service
+@Timed("planner.service")
+public class TripService {
+
+    // Nome do cache de viagens, configurado em application.properties
+    public static final String TRIPS_CACHE = "trips";
+
+    // Faixas de ids com contador de invalidações próprio; potência de 2
+    private static final int INVALIDATION_SLOTS = 1024;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ParticipantService participantService;
+
+    @Autowired
+    private TripStatsService tripStatsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${planner.trips.batch-get.chunk-size}")
+    private int batchGetChunkSize;
+
+    // O cache "trips" pelo Caffeine nativo, cujo asMap() dá o compute atômico por chave
+    private final Cache<Object, Object> trips;
+
+    // Invalidações por faixa de ids, lidas antes de cada consulta e conferidas ao gravar o resultado no cache
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_SLOTS);
+
+    public TripService(CacheManager cacheManager) {
+        this.trips = ((CaffeineCache) cacheManager.getCache(TRIPS_CACHE)).getNativeCache();
+    }
+
+    /**
+     * Cria uma nova viagem com os seus contadores e registra os participantes convidados, tudo em uma transação.
+     *
+     * parametro payload Dados da solicitação para criar uma nova viagem.
+     * returna A viagem criada.
+     */
+    @Transactional
+    public Trip createTrip(TripRequestPayload payload) {
+        // Cria uma nova instância de Trip a partir dos dados do payload, com o email do dono normalizado como os dos convidados,
+        // e a salva no banco de dados
+        Trip trip = new Trip(payload);
+        trip.setOwnerEmail(ParticipantService.normalizeEmail(trip.getOwnerEmail()));
+        Trip newTrip = this.tripRepository.save(trip);
+
+        this.tripStatsService.createStats(newTrip.getId());
+
+        // Registra os participantes na nova viagem
+        this.participantService.registerParticipantsToTrip(payload.emails_to_invite(), newTrip);
+
+        return newTrip;
+    }
+
+    /**
+     * Obtém os detalhes de uma viagem, servidos pelo cache quando possível.
+     * Viagens inexistentes não são guardadas no cache.
+     *
+     * parametro id O UUID da viagem.
+     * returna Os dados da viagem, ou vazio se ela não existir.
+     */
+    public Optional<TripData> getTripDetails(UUID id) {
+        TripData cached = (TripData) this.trips.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        // Lido antes da consulta: uma invalidação durante ela impede que o resultado entre no cache
+        long stamp = this.invalidations.get(slot(id));
+        Optional<TripData> trip = this.tripRepository.findDataById(id);
+        trip.ifPresent(data -> this.cacheIfCurrent(data, stamp));
+        return trip;
+    }
+
+    /**
+     * Obtém os detalhes de várias viagens: primeiro pelo cache de viagens e, para as que faltarem,
+     * com consultas IN de até batchGetChunkSize ids cada. As viagens lidas do banco entram no cache pela mesma regra
+     * de getTripDetails: só se nenhuma invalidação da viagem aconteceu desde antes da consulta do seu lote
+     * e sem sobrescrever um retrato guardado por outra leitura nesse meio tempo.
+     *
+     * parametro ids Os UUIDs das viagens, na ordem desejada; repetições são permitidas.
+     * returna Uma entrada por id pedido, na mesma ordem, marcando as viagens não encontradas.
+     */
+    public List<TripLookup> getTripDetailsBatch(List<UUID> ids) {
+        Map<UUID, TripData> found = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+
+        for (UUID id : new LinkedHashSet<>(ids)) {
+            TripData cached = (TripData) this.trips.getIfPresent(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        for (int from = 0; from < missing.size(); from += this.batchGetChunkSize) {
+            List<UUID> chunk = missing.subList(from, Math.min(from + this.batchGetChunkSize, missing.size()));
+
+            // Lidos antes da consulta do lote, como em getTripDetails
+            Map<UUID, Long> stamps = new HashMap<>();
+            for (UUID id : chunk) {
+                stamps.put(id, this.invalidations.get(slot(id)));
+            }
+
+            for (TripData trip : this.tripRepository.findDataByIdIn(chunk)) {
+                found.put(trip.id(), trip);
+                this.cacheIfCurrent(trip, stamps.get(trip.id()));
+            }
+        }
+
+        return ids.stream().map(id -> new TripLookup(id, found.containsKey(id), found.get(id))).toList();
+    }
+
+    /**
+     * Busca viagens por dono, período e prefixo do destino, das que começam mais tarde para as que começam mais cedo.
+     * A leitura não passa pelo cache de viagens: cada página é uma única consulta servida pelo índice do filtro.
+     *
+     * parametro criteria Os filtros da busca.
+     * parametro cursor O cursor devolvido pela página anterior, ou nulo para a primeira página.
+     * parametro limit O tamanho da página.
+     * returna A página de viagens e o cursor da próxima, se houver.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TripData> searchTrips(TripSearchCriteria criteria, String cursor, int limit) {
+        // Busca uma linha a mais para saber se existe próxima página
+        Limit fetch = Limit.of(limit + 1);
+
+        List<TripData> rows;
+        if (cursor == null) {
+            rows = this.tripRepository.searchDataPage(criteria, fetch);
+        } else {
+            TripKey last = Cursors.decode(cursor, 2, keys -> new TripKey(IsoDateTimes.parse(keys.get(0)), UUID.fromString(keys.get(1))));
+            rows = this.tripRepository.searchDataPageAfter(criteria, last.startsAt(), last.id(), fetch);
+        }
+
+        return Cursors.page(rows, limit, trip -> Cursors.encode(trip.startsAt(), trip.id()));
+    }
+
+    /**
+     * Atualiza destino e datas de uma viagem e invalida a entrada no cache depois do commit.
+     * Duas atualizações simultâneas da mesma viagem esbarram no lock otimista: a segunda a gravar
+     * falha com ObjectOptimisticLockingFailureException.
+     *
+     * parametro id O UUID da viagem a ser atualizada.
+     * parametro payload Dados da solicitação para atualizar a viagem.
+     * returna Os dados da viagem atualizada, ou vazio se ela não existir.
+     */
+    @Transactional
+    public Optional<TripData> updateTrip(UUID id, TripRequestPayload payload) {
+        // Busca a viagem pelo ID
+        Optional<Trip> trip = this.tripRepository.findById(id);
+
+        if (trip.isPresent()) {
+            // Obtém a viagem encontrada
+            Trip rawTrip = trip.get();
+
+            // Atualiza os detalhes da viagem com os dados do payload
+            rawTrip.setEndsAt(payload.ends_at());
+            rawTrip.setStartsAt(payload.starts_at());
+            rawTrip.setDestination(payload.destination());
+
+            // Grava já a viagem atualizada, para que a versão incrementada pelo Hibernate entre na revisão lida a seguir
+            this.tripRepository.saveAndFlush(rawTrip);
+            this.touch(id);
+
+            // Avisa os inscritos no feed de eventos da viagem
+            this.eventPublisher.publishEvent(new TripChangedEvent(id, TripChangedEvent.TRIP_UPDATED, id));
+
+            return this.tripRepository.findDataById(id);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Confirma uma viagem em uma transação. Só a confirmação que muda isConfirmed de falso para verdadeiro
+     * invalida o cache, enfileira os emails de confirmação dos participantes e avisa o feed de eventos;
+     * confirmar de novo uma viagem já confirmada, inclusive em requisições simultâneas, não altera nem envia nada.
+     * Uma atualização da viagem feita ao mesmo tempo esbarra na versão incrementada e falha no lock otimista.
+     *
+     * parametro id O UUID da viagem a ser confirmada.
+     * returna Os dados da viagem confirmada, ou vazio se ela não existir.
+     */
+    @Transactional
+    public Optional<TripData> confirmTrip(UUID id) {
+        // UPDATE condicional: a viagem não é carregada e a troca de estado acontece uma única vez
+        if (this.tripRepository.confirm(id) == 1) {
+            this.touch(id);
+
+            // Envia email de confirmação para todos os participantes da viagem
+            this.participantService.triggerConfirmationEmailToParticipants(id);
+
+            // Avisa os inscritos no feed de eventos da viagem
+            this.eventPublisher.publishEvent(new TripChangedEvent(id, TripChangedEvent.TRIP_CONFIRMED, id));
+        }
+
+        // Vazio quando a viagem não existe
+        return this.tripRepository.findDataById(id);
+    }
+
+    /**
+     * Invalida a entrada da viagem no cache depois de uma alteração nela ou nos seus filhos. A revisão da viagem já mudou
+     * na própria escrita (versão da linha trips ou contador de alterações em trip_stats); aqui só o retrato em cache sai.
+     * Dentro de uma transação a invalidação espera o commit, para que uma leitura feita antes dele não seja a última a entrar no cache.
+     *
+     * parametro id O UUID da viagem alterada.
+     */
+    public void touch(UUID id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.invalidate(id);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(id);
+            }
+        });
+    }
+
+    // Remove a entrada e conta a invalidação sob o lock da chave, o mesmo que cacheIfCurrent usa
+    private void invalidate(UUID id) {
+        this.trips.asMap().compute(id, (key, current) -> {
+            this.invalidations.incrementAndGet(slot(id));
+            return null;
+        });
+    }
+
+    // Guarda o retrato lido do banco se a viagem não foi invalidada desde stamp e nenhuma outra leitura a guardou antes
+    private void cacheIfCurrent(TripData trip, long stamp) {
+        this.trips.asMap().computeIfAbsent(trip.id(), key -> this.invalidations.get(slot(trip.id())) == stamp ? trip : null);
+    }
+
+    private static int slot(UUID id) {
+        return id.hashCode() & (INVALIDATION_SLOTS - 1);
+    }
+
+    // Chave de ordenação (starts_at, id) guardada no cursor da busca de viagens
+    private record TripKey(LocalDateTime startsAt, UUID id) {
+    }
+}
@@ -0,0 +1,21 @@
+-- Contadores materializados por viagem, divididos em faixas (stripes): cada incremento atualiza uma faixa sorteada,
+-- espalhando os locks de linha de viagens muito disputadas; o total é a soma das faixas
+CREATE TABLE trip_stats (
+    trip_id UUID NOT NULL,
+    stripe INT NOT NULL,
+    participants BIGINT NOT NULL,
+    confirmed_participants BIGINT NOT NULL,
+    activities BIGINT NOT NULL,
+    links BIGINT NOT NULL,
+    PRIMARY KEY (trip_id, stripe),
+    FOREIGN KEY (trip_id) REFERENCES trips(id) ON DELETE CASCADE
+);
+
+-- Preenche as viagens existentes: as contagens atuais na faixa 0 e as demais (até TripStatsService.STRIPES) zeradas
+INSERT INTO trip_stats (trip_id, stripe, participants, confirmed_participants, activities, links)
+SELECT t.id, r.x,
+       CASE WHEN r.x = 0 THEN (SELECT COUNT(*) FROM participants p WHERE p.trip_id = t.id) ELSE 0 END,
+       CASE WHEN r.x = 0 THEN (SELECT COUNT(*) FROM participants p WHERE p.trip_id = t.id AND p.is_confirmed) ELSE 0 END,
+       CASE WHEN r.x = 0 THEN (SELECT COUNT(*) FROM activities a WHERE a.trip_id = t.id) ELSE 0 END,
+       CASE WHEN r.x = 0 THEN (SELECT COUNT(*) FROM links l WHERE l.trip_id = t.id) ELSE 0 END
+FROM trips t CROSS JOIN SYSTEM_RANGE(0, 7) r;
@@ -0,0 +1,3 @@
+CREATE INDEX idx_trips_owner_email_starts_at ON trips(owner_email, starts_at);
+CREATE INDEX idx_trips_starts_at_ends_at ON trips(starts_at, ends_at);
+CREATE INDEX idx_trips_destination ON trips(destination);
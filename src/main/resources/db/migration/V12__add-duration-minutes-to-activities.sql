@@ -0,0 +1,2 @@
+ALTER TABLE activities ADD COLUMN duration_minutes INT;
+ALTER TABLE activities ADD CONSTRAINT ck_activities_duration_minutes CHECK (duration_minutes >= 0);
@@ -0,0 +1,3 @@
+-- Alterações de participantes, atividades e links, contadas nas faixas de trip_stats em vez da linha da viagem:
+-- a revisão de uma viagem (base das ETags) é trips.version somada às faixas, e escritas nos filhos não disputam a linha trips
+ALTER TABLE trip_stats ADD COLUMN changes BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,35 @@
+-- Normaliza os emails gravados antes da normalização no código (ParticipantService.normalizeEmail: sem espaços nas pontas
+-- e em minúsculas), para que participantes antigos com maiúsculas consigam confirmar. A V9 só removeu repetições exatas,
+-- então emails que passam a coincidir depois de normalizados são reduzidos a um antes da restrição única ser exercida.
+
+-- Toda viagem com algum email a normalizar conta uma alteração na revisão, base das ETags
+UPDATE trip_stats s SET changes = changes + 1
+WHERE s.stripe = 0
+  AND EXISTS (SELECT 1 FROM participants p WHERE p.trip_id = s.trip_id AND p.email <> LOWER(TRIM(p.email)));
+
+-- Mantém por (trip_id, email normalizado) o participante confirmado ou, entre iguais, o de menor id, com a mesma regra da V9
+CREATE TABLE v14_duplicate_participants AS
+SELECT p.id, p.trip_id, p.is_confirmed FROM participants p
+WHERE EXISTS (
+    SELECT 1 FROM participants d
+    WHERE d.trip_id = p.trip_id
+      AND LOWER(TRIM(d.email)) = LOWER(TRIM(p.email))
+      AND ((d.is_confirmed AND NOT p.is_confirmed) OR (d.is_confirmed = p.is_confirmed AND d.id < p.id))
+);
+
+-- Os contadores perdem os participantes removidos; a faixa 0 absorve a diferença, já que só a soma das faixas importa
+UPDATE trip_stats s
+SET participants = participants - (SELECT COUNT(*) FROM v14_duplicate_participants d WHERE d.trip_id = s.trip_id),
+    confirmed_participants = confirmed_participants - (SELECT COUNT(*) FROM v14_duplicate_participants d WHERE d.trip_id = s.trip_id AND d.is_confirmed)
+WHERE s.stripe = 0
+  AND EXISTS (SELECT 1 FROM v14_duplicate_participants d WHERE d.trip_id = s.trip_id);
+
+DELETE FROM participants WHERE id IN (SELECT id FROM v14_duplicate_participants);
+
+DROP TABLE v14_duplicate_participants;
+
+-- Sem repetições, a restrição uq_participants_trip_id_email da V9 aceita os emails normalizados
+UPDATE participants SET email = LOWER(TRIM(email)) WHERE email <> LOWER(TRIM(email));
+
+-- O email do dono segue a mesma normalização; a versão muda junto, pois faz parte da revisão da viagem
+UPDATE trips SET owner_email = LOWER(TRIM(owner_email)), version = version + 1 WHERE owner_email <> LOWER(TRIM(owner_email));
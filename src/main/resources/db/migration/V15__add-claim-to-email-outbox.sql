@@ -0,0 +1,9 @@
+-- Reserva das mensagens em envio: o token identifica a leitura do despachante que a fez, e o instante permite devolver
+-- à fila só as reservas vencidas (de um despachante que parou no meio do envio), sem tocar nas que ainda estão em andamento
+ALTER TABLE email_outbox ADD COLUMN claim_token UUID;
+ALTER TABLE email_outbox ADD COLUMN claimed_at TIMESTAMP;
+
+CREATE INDEX idx_email_outbox_claim_token ON email_outbox(claim_token);
+
+-- Mensagens já reservadas antes desta migração contam a reserva a partir de agora
+UPDATE email_outbox SET claimed_at = LOCALTIMESTAMP WHERE status = 'SENDING';
@@ -0,0 +1,12 @@
+CREATE TABLE email_outbox (
+    id UUID DEFAULT RANDOM_UUID() PRIMARY KEY,
+    trip_id UUID NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL,
+    next_attempt_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (trip_id) REFERENCES trips(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_email_outbox_status_next_attempt ON email_outbox(status, next_attempt_at);
@@ -0,0 +1,3 @@
+CREATE INDEX idx_participants_trip_id_id ON participants(trip_id, id);
+CREATE INDEX idx_activities_trip_id_occurs_at_id ON activities(trip_id, occurs_at, id);
+CREATE INDEX idx_links_trip_id_id ON links(trip_id, id);
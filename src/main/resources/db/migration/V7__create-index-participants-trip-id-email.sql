@@ -0,0 +1 @@
+CREATE INDEX idx_participants_trip_id_email ON participants(trip_id, email);
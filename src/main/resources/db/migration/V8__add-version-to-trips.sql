@@ -0,0 +1 @@
+ALTER TABLE trips ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,13 @@
+-- Remove convites repetidos antes de criar a restrição, mantendo por (trip_id, email) o participante confirmado
+-- ou, entre iguais, o de menor id
+DELETE FROM participants p
+WHERE EXISTS (
+    SELECT 1 FROM participants d
+    WHERE d.trip_id = p.trip_id
+      AND d.email = p.email
+      AND ((d.is_confirmed AND NOT p.is_confirmed) OR (d.is_confirmed = p.is_confirmed AND d.id < p.id))
+);
+
+-- O índice único atende as mesmas buscas por (trip_id, email) que o índice da V7
+DROP INDEX idx_participants_trip_id_email;
+ALTER TABLE participants ADD CONSTRAINT uq_participants_trip_id_email UNIQUE (trip_id, email);
@@ -0,0 +1,99 @@
+package com.lucas.planner;
+
+import com.lucas.planner.stats.TripStatsService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Apoio aos benchmarks JMH: sobe a aplicação sobre o H2 em memória, sem servidor web ou com ele em uma porta livre,
+ * e popula viagens com filhos.
+ */
+public final class BenchmarkContexts {
+
+	private BenchmarkContexts() {
+	}
+
+	public static ConfigurableApplicationContext start() {
+		return builder().web(WebApplicationType.NONE).run();
+	}
+
+	/**
+	 * Sobe a aplicação sem servidor web, com propriedades adicionais no formato chave=valor.
+	 */
+	public static ConfigurableApplicationContext start(String... properties) {
+		// Argumentos de linha de comando, para sobrepor o application.properties
+		return builder().web(WebApplicationType.NONE).run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+	}
+
+	/**
+	 * Sobe a aplicação com o Tomcat em uma porta livre, para benchmarks que medem requisições HTTP completas.
+	 */
+	public static ServletWebServerApplicationContext startWeb() {
+		// Argumento de linha de comando, para sobrepor o server.port do application.properties
+		return (ServletWebServerApplicationContext) builder().web(WebApplicationType.SERVLET).run("--server.port=0");
+	}
+
+	private static SpringApplicationBuilder builder() {
+		return new SpringApplicationBuilder(PlannerApplication.class)
+				.properties(
+						"spring.main.banner-mode=off",
+						"logging.level.root=WARN",
+						// Mantém o despachante de emails parado durante as medições
+						"planner.mail.poll-interval=PT1H");
+	}
+
+	/**
+	 * Cria uma viagem com a quantidade pedida de participantes, atividades e links, com um INSERT ... SELECT por tabela,
+	 * e as faixas dos seus contadores, como o TripService.createTrip, para que os incrementos medidos encontrem as linhas.
+	 */
+	public static UUID seedTrip(JdbcTemplate jdbcTemplate, int participants, int activities, int links) {
+		UUID tripId = UUID.randomUUID();
+
+		jdbcTemplate.update("""
+				INSERT INTO trips (id, destination, starts_at, ends_at, is_confirmed, owner_name, owner_email, version)
+				VALUES (?, 'Rio', TIMESTAMP '2024-07-01 10:00:00', TIMESTAMP '2024-07-05 10:00:00', FALSE, 'Dono', 'dono@x.com', 0)
+				""", tripId);
+		jdbcTemplate.update("""
+				INSERT INTO participants (id, name, email, is_confirmed, trip_id)
+				SELECT RANDOM_UUID(), 'Participante ' || X, 'p' || X || '@x.com', FALSE, ? FROM SYSTEM_RANGE(1, ?)
+				""", tripId, participants);
+		jdbcTemplate.update("""
+				INSERT INTO activities (id, title, occurs_at, trip_id)
+				SELECT RANDOM_UUID(), 'Atividade ' || X, DATEADD(MINUTE, X, TIMESTAMP '2024-07-01 10:00:00'), ? FROM SYSTEM_RANGE(1, ?)
+				""", tripId, activities);
+		jdbcTemplate.update("""
+				INSERT INTO links (id, title, url, trip_id)
+				SELECT RANDOM_UUID(), 'Link ' || X, 'https://x.com/' || X, ? FROM SYSTEM_RANGE(1, ?)
+				""", tripId, links);
+		jdbcTemplate.update("""
+				INSERT INTO trip_stats (trip_id, stripe, participants, confirmed_participants, activities, links)
+				SELECT ?, X, CASE WHEN X = 0 THEN ? ELSE 0 END, 0, CASE WHEN X = 0 THEN ? ELSE 0 END, CASE WHEN X = 0 THEN ? ELSE 0 END
+				FROM SYSTEM_RANGE(0, ?)
+				""", tripId, participants, activities, links, TripStatsService.STRIPES - 1);
+
+		return tripId;
+	}
+
+	/**
+	 * Cria viagens sem filhos com um único INSERT ... SELECT: uma a cada 5 minutos a partir de 2020, com duração de até 14 dias,
+	 * donos dono0@x.com a dono{owners - 1}@x.com e destinos "Destino 0" a "Destino {destinations - 1}", distribuídos em rodízio.
+	 * Termina com ANALYZE, para que o H2 escolha os índices pela seletividade real dos dados.
+	 */
+	public static void seedTrips(JdbcTemplate jdbcTemplate, int trips, int owners, int destinations) {
+		jdbcTemplate.update("""
+				INSERT INTO trips (id, destination, starts_at, ends_at, is_confirmed, owner_name, owner_email, version)
+				SELECT RANDOM_UUID(), 'Destino ' || MOD(X, ?),
+				       DATEADD(MINUTE, X * 5, TIMESTAMP '2020-01-01 00:00:00'),
+				       DATEADD(MINUTE, X * 5 + MOD(X, 20160), TIMESTAMP '2020-01-01 00:00:00'),
+				       FALSE, 'Dono', 'dono' || MOD(X, ?) || '@x.com', 0
+				FROM SYSTEM_RANGE(1, ?)
+				""", destinations, owners, trips);
+		jdbcTemplate.execute("ANALYZE");
+	}
+}
@@ -0,0 +1,37 @@
+package com.lucas.planner;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Captura o SQL gerado pelo Hibernate na thread atual, ignorando tarefas agendadas em outras threads.
+ * Configurado pela propriedade spring.jpa.properties.hibernate.session_factory.statement_inspector (PROPERTY),
+ * usado pelos testes e benchmarks que executam EXPLAIN nas consultas dos repositórios.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+	public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.lucas.planner.CapturingStatementInspector";
+
+	private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+	public static void start() {
+		STATEMENTS.set(new ArrayList<>());
+	}
+
+	public static List<String> stop() {
+		List<String> statements = STATEMENTS.get();
+		STATEMENTS.remove();
+		return statements;
+	}
+
+	@Override
+	public String inspect(String sql) {
+		List<String> statements = STATEMENTS.get();
+		if (statements != null) {
+			statements.add(sql);
+		}
+		return sql;
+	}
+}
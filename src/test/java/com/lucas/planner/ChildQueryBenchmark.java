@@ -0,0 +1,96 @@
+package com.lucas.planner;
+
+import com.lucas.planner.activity.ActivityData;
+import com.lucas.planner.activity.ActivityRepository;
+import com.lucas.planner.link.LinkData;
+import com.lucas.planner.link.LinkRepository;
+import com.lucas.planner.participant.ParticipantData;
+import com.lucas.planner.participant.ParticipantRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho de leitura das listas de filhos de uma viagem, com o H2 em memória: entidades gerenciadas (findByTripId)
+ * convertidas para os records *Data, como era antes, contra a projeção por expressão construtora (findDataByTripId),
+ * que é o que os serviços usam. As duas variantes rodam na mesma transação somente leitura dos serviços,
+ * então a diferença medida é a hidratação das entidades, o snapshot para dirty checking e a associação com a viagem.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChildQueryBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	public int rows;
+
+	private ConfigurableApplicationContext context;
+
+	private ParticipantRepository participantRepository;
+
+	private ActivityRepository activityRepository;
+
+	private LinkRepository linkRepository;
+
+	private TransactionTemplate readOnly;
+
+	private UUID tripId;
+
+	@Setup
+	public void setUp() {
+		context = BenchmarkContexts.start();
+		participantRepository = context.getBean(ParticipantRepository.class);
+		activityRepository = context.getBean(ActivityRepository.class);
+		linkRepository = context.getBean(LinkRepository.class);
+		readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnly.setReadOnly(true);
+		tripId = BenchmarkContexts.seedTrip(context.getBean(JdbcTemplate.class), rows, rows, rows);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<ParticipantData> participantEntities() {
+		return readOnly.execute(status -> participantRepository.findByTripId(tripId).stream()
+				.map(p -> new ParticipantData(p.getId(), p.getName(), p.getEmail(), p.getIsConfirmed())).toList());
+	}
+
+	@Benchmark
+	public List<ParticipantData> participantProjection() {
+		return readOnly.execute(status -> participantRepository.findDataByTripId(tripId));
+	}
+
+	@Benchmark
+	public List<ActivityData> activityEntities() {
+		return readOnly.execute(status -> activityRepository.findByTripId(tripId).stream()
+				.map(a -> new ActivityData(a.getId(), a.getTitle(), a.getOccursAt(), a.getDurationMinutes())).toList());
+	}
+
+	@Benchmark
+	public List<ActivityData> activityProjection() {
+		return readOnly.execute(status -> activityRepository.findDataByTripId(tripId));
+	}
+
+	@Benchmark
+	public List<LinkData> linkEntities() {
+		return readOnly.execute(status -> linkRepository.findByTripId(tripId).stream()
+				.map(l -> new LinkData(l.getId(), l.getTitle(), l.getUrl())).toList());
+	}
+
+	@Benchmark
+	public List<LinkData> linkProjection() {
+		return readOnly.execute(status -> linkRepository.findDataByTripId(tripId));
+	}
+}
@@ -0,0 +1,104 @@
+package com.lucas.planner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucas.planner.activity.Activity;
+import com.lucas.planner.activity.ActivityData;
+import com.lucas.planner.link.Link;
+import com.lucas.planner.link.LinkData;
+import com.lucas.planner.participant.Participant;
+import com.lucas.planner.participant.ParticipantData;
+import com.lucas.planner.trip.Trip;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Conversão de entidades para os records *Data e serialização desses records com o Jackson, sem banco.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataRecordsBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	public int rows;
+
+	// Mesma configuração do ObjectMapper da aplicação (datas em ISO-8601, sem timestamps numéricos)
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private List<Participant> participants;
+
+	private List<Activity> activities;
+
+	private List<Link> links;
+
+	private List<ParticipantData> participantData;
+
+	private List<ActivityData> activityData;
+
+	private List<LinkData> linkData;
+
+	@Setup
+	public void setUp() {
+		Trip trip = new Trip(UUID.randomUUID(), "Rio", LocalDateTime.of(2024, 7, 1, 10, 0), LocalDateTime.of(2024, 7, 5, 10, 0), false, "Dono", "dono@x.com", 0L);
+
+		participants = IntStream.range(0, rows).mapToObj(i -> {
+			Participant participant = new Participant("p" + i + "@x.com", trip);
+			participant.setId(UUID.randomUUID());
+			participant.setName("Participante " + i);
+			return participant;
+		}).toList();
+		activities = IntStream.range(0, rows).mapToObj(i -> {
+			Activity activity = new Activity("Atividade " + i, LocalDateTime.of(2024, 7, 1, 10, 0).plusMinutes(i), trip);
+			activity.setId(UUID.randomUUID());
+			return activity;
+		}).toList();
+		links = IntStream.range(0, rows).mapToObj(i -> {
+			Link link = new Link("Link " + i, "https://x.com/" + i, trip);
+			link.setId(UUID.randomUUID());
+			return link;
+		}).toList();
+
+		participantData = mapParticipants();
+		activityData = mapActivities();
+		linkData = mapLinks();
+	}
+
+	@Benchmark
+	public List<ParticipantData> mapParticipants() {
+		return participants.stream().map(p -> new ParticipantData(p.getId(), p.getName(), p.getEmail(), p.getIsConfirmed())).toList();
+	}
+
+	@Benchmark
+	public List<ActivityData> mapActivities() {
+		return activities.stream().map(a -> new ActivityData(a.getId(), a.getTitle(), a.getOccursAt(), a.getDurationMinutes())).toList();
+	}
+
+	@Benchmark
+	public List<LinkData> mapLinks() {
+		return links.stream().map(l -> new LinkData(l.getId(), l.getTitle(), l.getUrl())).toList();
+	}
+
+	@Benchmark
+	public byte[] serializeParticipants() throws Exception {
+		return objectMapper.writeValueAsBytes(participantData);
+	}
+
+	@Benchmark
+	public byte[] serializeActivities() throws Exception {
+		return objectMapper.writeValueAsBytes(activityData);
+	}
+
+	@Benchmark
+	public byte[] serializeLinks() throws Exception {
+		return objectMapper.writeValueAsBytes(linkData);
+	}
+}
@@ -0,0 +1,134 @@
+package com.lucas.planner;
+
+import com.lucas.planner.activity.ActivityRepository;
+import com.lucas.planner.link.LinkRepository;
+import com.lucas.planner.mail.EmailOutboxRepository;
+import com.lucas.planner.mail.EmailStatus;
+import com.lucas.planner.participant.ParticipantRepository;
+import com.lucas.planner.stats.TripStatsRepository;
+import com.lucas.planner.trip.TripRepository;
+import com.lucas.planner.trip.TripSearchCriteria;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Executa EXPLAIN no H2 para o SQL que o Hibernate gera em cada consulta dos repositórios
+ * e falha se alguma delas recorrer a uma varredura completa de tabela.
+ */
+@SpringBootTest(properties = CapturingStatementInspector.PROPERTY)
+class RepositoryQueryPlanTests {
+
+	private static final UUID TRIP_ID = UUID.randomUUID();
+
+	private static final UUID OTHER_ID = UUID.randomUUID();
+
+	private static final Limit LIMIT = Limit.of(10);
+
+	@Autowired
+	private TripRepository tripRepository;
+
+	@Autowired
+	private ParticipantRepository participantRepository;
+
+	@Autowired
+	private ActivityRepository activityRepository;
+
+	@Autowired
+	private LinkRepository linkRepository;
+
+	@Autowired
+	private EmailOutboxRepository emailOutboxRepository;
+
+	@Autowired
+	private TripStatsRepository tripStatsRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void tripQueriesUseIndexes() {
+		assertNoTableScan(() -> tripRepository.findById(TRIP_ID));
+		assertNoTableScan(() -> tripRepository.findDataByIdIn(List.of(TRIP_ID, OTHER_ID)));
+	}
+
+	@Test
+	void tripSearchQueriesUseIndexes() {
+		LocalDateTime from = LocalDateTime.now();
+		LocalDateTime to = from.plusDays(7);
+
+		for (TripSearchCriteria criteria : List.of(
+				new TripSearchCriteria("o@x.com", null, null, null),
+				new TripSearchCriteria("o@x.com", from, to, "Rio"),
+				new TripSearchCriteria(null, from, to, null),
+				new TripSearchCriteria(null, null, null, "Rio"))) {
+			assertNoTableScan(() -> tripRepository.searchDataPage(criteria, LIMIT));
+			assertNoTableScan(() -> tripRepository.searchDataPageAfter(criteria, to, OTHER_ID, LIMIT));
+		}
+	}
+
+	@Test
+	void participantQueriesUseIndexes() {
+		assertNoTableScan(() -> participantRepository.findByTripId(TRIP_ID));
+		assertNoTableScan(() -> participantRepository.findDataByTripId(TRIP_ID));
+		assertNoTableScan(() -> participantRepository.findDataPageByTripId(TRIP_ID, LIMIT));
+		assertNoTableScan(() -> participantRepository.findDataPageByTripIdAfter(TRIP_ID, OTHER_ID, LIMIT));
+	}
+
+	@Test
+	void activityQueriesUseIndexes() {
+		assertNoTableScan(() -> activityRepository.findByTripId(TRIP_ID));
+		assertNoTableScan(() -> activityRepository.findDataByTripId(TRIP_ID));
+		assertNoTableScan(() -> activityRepository.findDataPageByTripId(TRIP_ID, LIMIT));
+		assertNoTableScan(() -> activityRepository.findDataPageByTripIdAfter(TRIP_ID, LocalDateTime.now(), OTHER_ID, LIMIT));
+		assertNoTableScan(() -> activityRepository.findSlotsByTripId(TRIP_ID));
+	}
+
+	@Test
+	void linkQueriesUseIndexes() {
+		assertNoTableScan(() -> linkRepository.findByTripId(TRIP_ID));
+		assertNoTableScan(() -> linkRepository.findDataByTripId(TRIP_ID));
+		assertNoTableScan(() -> linkRepository.findDataPageByTripId(TRIP_ID, LIMIT));
+		assertNoTableScan(() -> linkRepository.findDataPageByTripIdAfter(TRIP_ID, OTHER_ID, LIMIT));
+	}
+
+	@Test
+	void tripStatsQueriesUseIndexes() {
+		assertNoTableScan(() -> tripStatsRepository.increment(TRIP_ID, 3, 1, 0, 0, 0));
+		assertNoTableScan(() -> tripStatsRepository.findStatsByTripIds(List.of(TRIP_ID, OTHER_ID)));
+	}
+
+	@Test
+	void emailOutboxQueriesUseIndexes() {
+		assertNoTableScan(() -> emailOutboxRepository.enqueueForTrip(TRIP_ID));
+		assertNoTableScan(() -> emailOutboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAt(EmailStatus.PENDING, LocalDateTime.now(), LIMIT));
+		assertNoTableScan(() -> emailOutboxRepository.claim(List.of(TRIP_ID), OTHER_ID, LocalDateTime.now()));
+		assertNoTableScan(() -> emailOutboxRepository.findByClaimTokenAndStatus(OTHER_ID, EmailStatus.SENDING));
+		assertNoTableScan(() -> emailOutboxRepository.complete(List.of(TRIP_ID), OTHER_ID, EmailStatus.SENT));
+		assertNoTableScan(() -> emailOutboxRepository.releaseStaleClaims(LocalDateTime.now()));
+		assertNoTableScan(() -> emailOutboxRepository.reschedule(List.of(TRIP_ID), OTHER_ID, EmailStatus.PENDING, LocalDateTime.now()));
+	}
+
+	/**
+	 * Executa a consulta, captura todo o SQL emitido por ela e verifica o plano de cada instrução.
+	 */
+	private void assertNoTableScan(Runnable query) {
+		CapturingStatementInspector.start();
+		try {
+			query.run();
+		} finally {
+			for (String sql : CapturingStatementInspector.stop()) {
+				String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+				assertFalse(plan.contains(".tableScan"), () -> "Varredura completa de tabela em:\n" + plan);
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.lucas.planner.activity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confere o ActivitySchedule contra a definição de sobreposição aplicada par a par, sobre atividades geradas ao acaso.
+ */
+class ActivityScheduleTests {
+
+	private static final LocalDateTime DAY = LocalDateTime.of(2024, 7, 2, 0, 0);
+
+	@Test
+	void overlappingMatchesPairwiseDefinition() {
+		Random random = new Random(42);
+		List<ActivitySlot> slots = randomSlots(random, 500);
+		ActivitySchedule schedule = new ActivitySchedule(slots);
+
+		for (int i = 0; i < 500; i++) {
+			LocalDateTime startsAt = DAY.plusMinutes(random.nextInt(24 * 60));
+			LocalDateTime endsAt = startsAt.plusMinutes(random.nextInt(4) == 0 ? 0 : random.nextInt(180));
+
+			List<UUID> expected = slots.stream()
+					.filter(slot -> overlaps(slot.occursAt(), slot.endsAt(), startsAt, endsAt))
+					.sorted((a, b) -> a.occursAt().equals(b.occursAt()) ? a.id().compareTo(b.id()) : a.occursAt().compareTo(b.occursAt()))
+					.map(ActivitySlot::id)
+					.toList();
+
+			assertEquals(expected, schedule.overlapping(startsAt, endsAt).stream().map(ActivitySlot::id).toList());
+		}
+	}
+
+	@Test
+	void overlappingWithLongActivityAddedInOrder() {
+		// Inclusões em ordem de início, o pior caso de uma árvore sem balanceamento, e uma atividade de três dias,
+		// que antes fazia toda busca percorrer as atividades desde três dias antes do intervalo
+		List<ActivitySlot> slots = new ArrayList<>();
+		for (int i = 0; i < 2_000; i++) {
+			slots.add(new ActivitySlot(UUID.randomUUID(), DAY.plusMinutes(5L * i), i % 4 == 0 ? null : 30));
+		}
+		slots.add(new ActivitySlot(UUID.randomUUID(), DAY.minusDays(1), 3 * 24 * 60));
+
+		ActivitySchedule schedule = new ActivitySchedule(List.of());
+		slots.forEach(schedule::add);
+
+		Random random = new Random(3);
+		for (int i = 0; i < 200; i++) {
+			LocalDateTime startsAt = DAY.plusMinutes(random.nextInt(8 * 24 * 60) - 2 * 24 * 60);
+			LocalDateTime endsAt = startsAt.plusMinutes(random.nextInt(4) == 0 ? 0 : random.nextInt(120));
+
+			List<UUID> expected = slots.stream()
+					.filter(slot -> overlaps(slot.occursAt(), slot.endsAt(), startsAt, endsAt))
+					.sorted((a, b) -> a.occursAt().equals(b.occursAt()) ? a.id().compareTo(b.id()) : a.occursAt().compareTo(b.occursAt()))
+					.map(ActivitySlot::id)
+					.toList();
+
+			assertEquals(expected, schedule.overlapping(startsAt, endsAt).stream().map(ActivitySlot::id).toList());
+		}
+	}
+
+	@Test
+	void conflictsMatchPairwiseDefinition() {
+		List<ActivitySlot> slots = randomSlots(new Random(7), 300);
+		ActivitySchedule schedule = new ActivitySchedule(List.of());
+		slots.forEach(schedule::add);
+
+		long expected = 0;
+		for (int i = 0; i < slots.size(); i++) {
+			for (int j = i + 1; j < slots.size(); j++) {
+				ActivitySlot a = slots.get(i);
+				ActivitySlot b = slots.get(j);
+				if (overlaps(a.occursAt(), a.endsAt(), b.occursAt(), b.endsAt())) {
+					expected++;
+				}
+			}
+		}
+
+		List<ActivityConflict> conflicts = schedule.conflicts();
+		assertEquals(expected, conflicts.size());
+		assertTrue(conflicts.stream().noneMatch(c -> c.overlap_ends_at().isBefore(c.overlap_starts_at())));
+	}
+
+	@Test
+	void adjacentActivitiesDoNotConflict() {
+		UUID first = UUID.randomUUID();
+		ActivitySchedule schedule = new ActivitySchedule(List.of(new ActivitySlot(first, DAY.withHour(9), 60)));
+
+		assertTrue(schedule.overlapping(DAY.withHour(10), DAY.withHour(11)).isEmpty());
+		assertTrue(schedule.overlapping(DAY.withHour(8), DAY.withHour(9)).isEmpty());
+		assertEquals(List.of(first), schedule.overlapping(DAY.withHour(9), DAY.withHour(9)).stream().map(ActivitySlot::id).toList());
+
+		// A mesma atividade incluída duas vezes, como após o commit de uma atividade já lida na montagem, não se duplica
+		schedule.add(new ActivitySlot(first, DAY.withHour(9), 60));
+		assertTrue(schedule.conflicts().isEmpty());
+	}
+
+	@Test
+	void fitsWithinTripWindow() {
+		LocalDateTime startsAt = DAY;
+		LocalDateTime endsAt = DAY.plusDays(3);
+
+		assertTrue(ActivitySchedule.fitsWithin(startsAt, null, startsAt, endsAt));
+		assertTrue(ActivitySchedule.fitsWithin(endsAt.minusMinutes(30), 30, startsAt, endsAt));
+		assertFalse(ActivitySchedule.fitsWithin(endsAt.minusMinutes(30), 31, startsAt, endsAt));
+		assertFalse(ActivitySchedule.fitsWithin(startsAt.minusSeconds(1), null, startsAt, endsAt));
+		assertFalse(ActivitySchedule.fitsWithin(startsAt, -1, startsAt, endsAt));
+	}
+
+	// Atividades ao longo de um dia, em horários cheios de 15 minutos para forçar inícios repetidos; uma em cada três sem duração
+	private static List<ActivitySlot> randomSlots(Random random, int count) {
+		List<ActivitySlot> slots = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Integer duration = random.nextInt(3) == 0 ? null : random.nextInt(240);
+			slots.add(new ActivitySlot(UUID.randomUUID(), DAY.plusMinutes(15L * random.nextInt(96)), duration));
+		}
+		return slots;
+	}
+
+	private static boolean overlaps(LocalDateTime aStart, LocalDateTime aEnd, LocalDateTime bStart, LocalDateTime bEnd) {
+		return aStart.equals(bStart) || (aStart.isBefore(bEnd) && bStart.isBefore(aEnd));
+	}
+}
@@ -0,0 +1,48 @@
+package com.lucas.planner.activity;
+
+import com.lucas.planner.BenchmarkContexts;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura das atividades de uma viagem pelo ActivityService, com o H2 em memória.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivityServiceBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	public int rows;
+
+	private ConfigurableApplicationContext context;
+
+	private ActivityService activityService;
+
+	private UUID tripId;
+
+	@Setup
+	public void setUp() {
+		context = BenchmarkContexts.start();
+		activityService = context.getBean(ActivityService.class);
+		tripId = BenchmarkContexts.seedTrip(context.getBean(JdbcTemplate.class), 0, rows, 0);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<ActivityData> getAllActivitiesFromId() {
+		return activityService.getAllActivitiesFromId(tripId);
+	}
+}
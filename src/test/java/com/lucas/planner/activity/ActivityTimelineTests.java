@@ -0,0 +1,96 @@
+package com.lucas.planner.activity;
+
+import com.lucas.planner.trip.Trip;
+import com.lucas.planner.trip.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Linha do tempo das atividades (GET /trips/{id}/activities/timeline) de uma viagem de 1 a 3 de julho,
+ * com uma atividade dentro do período e duas fora dele, como ficam depois de uma alteração das datas da viagem,
+ * e o limite de dias da linha do tempo (planner.activities.timeline.max-days, 1000 por padrão).
+ */
+@SpringBootTest(properties = "planner.mail.poll-interval=PT1H")
+@AutoConfigureMockMvc
+class ActivityTimelineTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TripRepository tripRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private UUID tripId;
+
+	@BeforeEach
+	void setUp() {
+		Trip trip = new Trip(null, "Rio", LocalDateTime.of(2024, 7, 1, 10, 0), LocalDateTime.of(2024, 7, 3, 10, 0), false, "O", "o@x.com", null);
+		tripRepository.save(trip);
+		tripId = trip.getId();
+
+		insertActivity("Antes", LocalDateTime.of(2024, 6, 30, 9, 0));
+		insertActivity("Durante", LocalDateTime.of(2024, 7, 2, 1, 0));
+		insertActivity("Depois", LocalDateTime.of(2024, 7, 5, 18, 0));
+	}
+
+	@Test
+	void activitiesOutsideTheTripExtendTheTimeline() throws Exception {
+		mockMvc.perform(get("/trips/{id}/activities/timeline", tripId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].date").value(contains("2024-06-30", "2024-07-01", "2024-07-02", "2024-07-03", "2024-07-04", "2024-07-05")))
+				.andExpect(jsonPath("$[0].activities[0].title").value("Antes"))
+				.andExpect(jsonPath("$[2].activities[0].title").value("Durante"))
+				.andExpect(jsonPath("$[2].activities[0].occurs_at").value("2024-07-02T01:00:00"))
+				.andExpect(jsonPath("$[4].activities").isEmpty())
+				.andExpect(jsonPath("$[5].activities[0].title").value("Depois"));
+	}
+
+	@Test
+	void storedTimesAreUtc() throws Exception {
+		// 01:00 UTC de 2 de julho são 22:00 de 1º de julho em São Paulo (UTC-3)
+		mockMvc.perform(get("/trips/{id}/activities/timeline", tripId).param("zone", "America/Sao_Paulo"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].date").value("2024-06-30"))
+				.andExpect(jsonPath("$[1].date").value("2024-07-01"))
+				.andExpect(jsonPath("$[1].activities[0].title").value("Durante"))
+				.andExpect(jsonPath("$[1].activities[0].occurs_at").value("2024-07-01T22:00:00"))
+				.andExpect(jsonPath("$[2].activities").isEmpty());
+	}
+
+	@Test
+	void timelineIsLimitedToMaxDays() throws Exception {
+		// Datas informadas pelo cliente: um período de séculos seria recusado em vez de gerar um item por dia
+		Trip longTrip = new Trip(null, "Rio", LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 0, 0), false, "O", "o@x.com", null);
+		tripRepository.save(longTrip);
+		mockMvc.perform(get("/trips/{id}/activities/timeline", longTrip.getId())).andExpect(status().isBadRequest());
+
+		// Uma atividade distante estende a linha do tempo da mesma forma: 1000 dias a partir de 30 de junho ainda cabem, 1001 não
+		insertActivity("Limite", LocalDateTime.of(2024, 6, 30, 0, 0).plusDays(999));
+		mockMvc.perform(get("/trips/{id}/activities/timeline", tripId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1000));
+
+		insertActivity("Além do limite", LocalDateTime.of(2024, 6, 30, 0, 0).plusDays(1000));
+		mockMvc.perform(get("/trips/{id}/activities/timeline", tripId)).andExpect(status().isBadRequest());
+	}
+
+	private void insertActivity(String title, LocalDateTime occursAt) {
+		jdbcTemplate.update("INSERT INTO activities (id, title, occurs_at, trip_id) VALUES (?, ?, ?, ?)", UUID.randomUUID(), title, occursAt, tripId);
+	}
+}
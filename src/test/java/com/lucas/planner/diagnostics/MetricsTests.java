@@ -0,0 +1,69 @@
+package com.lucas.planner.diagnostics;
+
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Confere, pelo registro em memória que o Spring Boot usa nos testes, que uma requisição gera os timers
+ * do endpoint, do repositório e do serviço, a contagem de SQL da requisição e os gauges do Hikari.
+ */
+@SpringBootTest(properties = "planner.mail.poll-interval=PT1H")
+@AutoConfigureMockMvc
+class MetricsTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void recordsEndpointRepositoryServiceAndSqlMetrics() throws Exception {
+		String created = mockMvc.perform(post("/trips").contentType(MediaType.APPLICATION_JSON).content("""
+						{"destination":"Rio","starts_at":"2024-07-01T10:00:00","ends_at":"2024-07-05T10:00:00","emails_to_invite":["a@x.com"],"owner_email":"o@x.com","owner_name":"O"}
+						"""))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String tripId = JsonPath.read(created, "$.tripId");
+
+		// O contexto é compartilhado com outras classes de teste, que podem já ter chamado o mesmo endpoint: conta só a diferença
+		long requestsBefore = requests();
+		long statementsBefore = statementRequests();
+
+		mockMvc.perform(get("/trips/{id}/participants", tripId)).andExpect(status().isOk());
+
+		assertEquals(1, requests() - requestsBefore);
+		assertTrue(meterRegistry.get("spring.data.repository.invocations").tag("repository", "ParticipantRepository").tag("method", "findDataByTripId").timer().count() >= 1);
+		assertTrue(meterRegistry.get("planner.service").tag("class", "com.lucas.planner.participant.ParticipantService").tag("method", "getAllParticipantsFromTrip").timer().count() >= 1);
+
+		DistributionSummary statements = meterRegistry.get("planner.http.sql.statements").tag("uri", "/trips/{id}/participants").summary();
+		assertEquals(1, statementRequests() - statementsBefore);
+		assertTrue(statements.totalAmount() >= 1);
+
+		assertTrue(meterRegistry.get("hikaricp.connections.max").gauge().value() > 0);
+	}
+
+	private long requests() {
+		Timer timer = meterRegistry.find("http.server.requests").tag("uri", "/trips/{id}/participants").tag("method", "GET").tag("status", "200").timer();
+		return timer == null ? 0 : timer.count();
+	}
+
+	private long statementRequests() {
+		DistributionSummary summary = meterRegistry.find("planner.http.sql.statements").tag("uri", "/trips/{id}/participants").summary();
+		return summary == null ? 0 : summary.count();
+	}
+}
@@ -0,0 +1,61 @@
+package com.lucas.planner.diagnostics;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Com o trace ligado e limite zero, toda instrução é lenta: confere o log de SQL lenta com a requisição de origem
+ * e os cabeçalhos de depuração, que só aparecem quando pedidos.
+ */
+@SpringBootTest(properties = {
+		"planner.diagnostics.sql-trace.enabled=true",
+		"planner.diagnostics.sql-trace.slow-threshold=0ms",
+		"planner.mail.poll-interval=PT1H"
+})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class SqlTraceTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void tracesStatementsOfTheRequest(CapturedOutput output) throws Exception {
+		String created = mockMvc.perform(post("/trips").contentType(MediaType.APPLICATION_JSON).content("""
+						{"destination":"Rio","starts_at":"2024-07-01T10:00:00","ends_at":"2024-07-05T10:00:00","emails_to_invite":["a@x.com"],"owner_email":"o@x.com","owner_name":"O"}
+						"""))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		String tripId = JsonPath.read(created, "$.tripId");
+
+		MockHttpServletResponse untraced = mockMvc.perform(get("/trips/{id}/participants", tripId)).andExpect(status().isOk()).andReturn().getResponse();
+		assertNull(untraced.getHeader(SqlTraceFilter.COUNT_HEADER));
+
+		// A viagem vem do cache; os filhos são lidos em paralelo no executor do itinerário e as três leituras entram na conta
+		MockHttpServletResponse traced = mockMvc.perform(get("/trips/{id}/itinerary", tripId).header(SqlTraceFilter.TRACE_HEADER, "1"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+		assertEquals("3", traced.getHeader(SqlTraceFilter.COUNT_HEADER));
+		assertTrue(Double.parseDouble(traced.getHeader(SqlTraceFilter.TIME_HEADER)) > 0);
+		assertTrue(traced.getContentAsString().contains("\"participants\""));
+
+		assertTrue(output.getOut().contains("SQL lenta"));
+		assertTrue(output.getOut().contains("em GET /trips/" + tripId + "/itinerary"));
+	}
+}
@@ -0,0 +1,78 @@
+package com.lucas.planner.link;
+
+import com.lucas.planner.BenchmarkContexts;
+import com.lucas.planner.trip.TripRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Vazão de inserções simultâneas de links pelo LinkService, com o H2 em memória, como o POST /trips/{id}/links faz:
+ * contra uma referência à viagem (getReferenceById, sem leitura; a chave estrangeira valida a viagem)
+ * e, para comparação, contra a viagem carregada antes por findById.
+ * Cada inserção sorteia uma entre trips viagens: com uma só, todas as threads disputam as faixas de contadores da mesma viagem.
+ * Roda com 8 threads; -t muda a quantidade. Os links são apagados ao fim de cada iteração.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LinkInsertBenchmark {
+
+	@Param({"1", "64"})
+	public int trips;
+
+	private final LinkRequestPayload payload = new LinkRequestPayload("Reserva", "https://x.com/reserva");
+
+	private ConfigurableApplicationContext context;
+
+	private LinkService linkService;
+
+	private TripRepository tripRepository;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private List<UUID> tripIds;
+
+	@Setup
+	public void setUp() {
+		context = BenchmarkContexts.start();
+		linkService = context.getBean(LinkService.class);
+		tripRepository = context.getBean(TripRepository.class);
+		jdbcTemplate = context.getBean(JdbcTemplate.class);
+		tripIds = IntStream.range(0, trips).mapToObj(i -> BenchmarkContexts.seedTrip(jdbcTemplate, 0, 0, 0)).toList();
+	}
+
+	@TearDown(Level.Iteration)
+	public void deleteLinks() {
+		jdbcTemplate.update("DELETE FROM links");
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public LinkResponse reference() {
+		return linkService.registerLink(payload, tripRepository.getReferenceById(randomTrip()));
+	}
+
+	@Benchmark
+	public LinkResponse loaded() {
+		return linkService.registerLink(payload, tripRepository.findById(randomTrip()).orElseThrow());
+	}
+
+	private UUID randomTrip() {
+		return tripIds.get(ThreadLocalRandom.current().nextInt(tripIds.size()));
+	}
+}
@@ -0,0 +1,48 @@
+package com.lucas.planner.link;
+
+import com.lucas.planner.BenchmarkContexts;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura dos links de uma viagem pelo LinkService, com o H2 em memória.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinkServiceBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	public int rows;
+
+	private ConfigurableApplicationContext context;
+
+	private LinkService linkService;
+
+	private UUID tripId;
+
+	@Setup
+	public void setUp() {
+		context = BenchmarkContexts.start();
+		linkService = context.getBean(LinkService.class);
+		tripId = BenchmarkContexts.seedTrip(context.getBean(JdbcTemplate.class), 0, 0, rows);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<LinkData> getAllLinksFromId() {
+		return linkService.getAllLinksFromId(tripId);
+	}
+}
@@ -0,0 +1,171 @@
+package com.lucas.planner.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Gerador de carga com dois modos:
+ * fechado, em que cada cliente só envia a próxima requisição depois de receber a resposta da anterior;
+ * e aberto, em que as requisições saem em uma taxa fixa, independente das respostas.
+ * No modo aberto a latência é medida a partir do instante em que a requisição deveria ter saído,
+ * então atrasos do próprio gerador ou filas no servidor aparecem no histograma (sem coordinated omission).
+ * As latências são registradas em microssegundos, em um HdrHistogram por operação.
+ */
+final class LoadGenerator {
+
+	/**
+	 * Uma operação da mistura: executa uma requisição e retorna se a resposta foi de sucesso.
+	 */
+	interface Operation {
+		boolean call() throws Exception;
+	}
+
+	private final Map<String, Operation> operations;
+
+	private final String[] names;
+
+	private final int[] cumulativeWeights;
+
+	private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+
+	private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+
+	private volatile boolean recording;
+
+	LoadGenerator(Map<String, Operation> operations, Map<String, Integer> mix) {
+		this.operations = operations;
+		this.names = mix.keySet().toArray(String[]::new);
+		this.cumulativeWeights = new int[this.names.length];
+
+		int total = 0;
+		for (int i = 0; i < this.names.length; i++) {
+			if (!operations.containsKey(this.names[i])) {
+				throw new IllegalArgumentException("Operação desconhecida na mistura: " + this.names[i] + "; conhecidas: " + operations.keySet());
+			}
+			total += mix.get(this.names[i]);
+			this.cumulativeWeights[i] = total;
+			this.histograms.put(this.names[i], new ConcurrentHistogram(3));
+			this.errors.put(this.names[i], new LongAdder());
+		}
+	}
+
+	/**
+	 * Roda clientes em malha fechada: aquecimento sem registro e, em seguida, a medição.
+	 */
+	void runClosedLoop(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+		this.closedLoop(concurrency, warmup, false);
+		this.closedLoop(concurrency, duration, true);
+	}
+
+	/**
+	 * Envia requisições em malha aberta na taxa pedida: aquecimento sem registro e, em seguida, a medição.
+	 */
+	void runOpenLoop(double rate, Duration warmup, Duration duration) throws InterruptedException {
+		this.openLoop(rate, warmup, false);
+		this.openLoop(rate, duration, true);
+	}
+
+	Map<String, Histogram> histograms() {
+		return this.histograms;
+	}
+
+	long errors(String operation) {
+		return this.errors.get(operation).sum();
+	}
+
+	private void closedLoop(int concurrency, Duration duration, boolean record) throws InterruptedException {
+		this.recording = record;
+		long end = System.nanoTime() + duration.toNanos();
+
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < concurrency; i++) {
+				clients.submit(() -> {
+					while (System.nanoTime() < end) {
+						long start = System.nanoTime();
+						this.execute(this.pick(), start);
+					}
+				});
+			}
+		}
+	}
+
+	private void openLoop(double rate, Duration duration, boolean record) throws InterruptedException {
+		this.recording = record;
+		long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+		long start = System.nanoTime();
+		long end = start + duration.toNanos();
+
+		try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (long intended = start; intended < end; intended += interval) {
+				long wait = intended - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+
+				long scheduled = intended;
+				String operation = this.pick();
+				requests.submit(() -> this.execute(operation, scheduled));
+			}
+		}
+	}
+
+	// Executa a operação e registra a latência contada a partir de start
+	private void execute(String operation, long start) {
+		boolean success;
+		try {
+			success = this.operations.get(operation).call();
+		} catch (Exception e) {
+			success = false;
+		}
+
+		if (this.recording) {
+			this.histograms.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+			if (!success) {
+				this.errors.get(operation).increment();
+			}
+		}
+	}
+
+	private String pick() {
+		int draw = ThreadLocalRandom.current().nextInt(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+		for (int i = 0; i < this.cumulativeWeights.length; i++) {
+			if (draw < this.cumulativeWeights[i]) {
+				return this.names[i];
+			}
+		}
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * Tabela com contagem, erros e percentis (em milissegundos) por operação.
+	 */
+	String report(String title) {
+		StringBuilder report = new StringBuilder(String.format("%n%s%n%-10s %8s %7s %9s %9s %9s %9s%n", title, "op", "n", "erros", "p50", "p90", "p99", "max"));
+		for (String operation : this.names) {
+			Histogram histogram = this.histograms.get(operation);
+			report.append(String.format("%-10s %8d %7d %9.2f %9.2f %9.2f %9.2f%n", operation, histogram.getTotalCount(), this.errors(operation),
+					millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+					millis(histogram.getValueAtPercentile(99)), millis(histogram.getMaxValue())));
+		}
+		return report.toString();
+	}
+
+	static double millis(long micros) {
+		return micros / 1000.0;
+	}
+
+	List<String> operationNames() {
+		return List.of(this.names);
+	}
+}
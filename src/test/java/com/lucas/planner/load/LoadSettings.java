@@ -0,0 +1,46 @@
+package com.lucas.planner.load;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parâmetros do teste de carga, lidos das propriedades de sistema (mvn test -Pload-tests -Dload.rate=500 ...).
+ *
+ * load.warmup      Duração do aquecimento, descartado das medições (padrão PT5S).
+ * load.duration    Duração da medição de cada modo (padrão PT20S).
+ * load.concurrency Clientes simultâneos no modo fechado (padrão 16).
+ * load.rate        Requisições por segundo no modo aberto (padrão 200).
+ * load.mix         Pesos das operações, por exemplo create=5,invite=10,confirm=5,activity=20,list=50,itinerary=10.
+ * load.seed-trips  Viagens criadas antes do aquecimento (padrão 100).
+ * load.p99         Limite padrão do p99 em milissegundos (padrão 250); load.p99.[operação] sobrescreve por operação.
+ */
+record LoadSettings(Duration warmup, Duration duration, int concurrency, double rate, Map<String, Integer> mix, int seedTrips,
+                    long defaultP99Millis, Map<String, Long> p99Millis) {
+
+	static final String DEFAULT_MIX = "create=5,invite=10,confirm=5,activity=20,list=50,itinerary=10";
+
+	static LoadSettings fromSystemProperties() {
+		Map<String, Integer> mix = new LinkedHashMap<>();
+		for (String entry : System.getProperty("load.mix", DEFAULT_MIX).split(",")) {
+			String[] parts = entry.trim().split("=");
+			mix.put(parts[0], Integer.parseInt(parts[1]));
+		}
+
+		long defaultP99 = Long.getLong("load.p99", 250);
+		Map<String, Long> p99 = new LinkedHashMap<>();
+		for (String operation : mix.keySet()) {
+			p99.put(operation, Long.getLong("load.p99." + operation, defaultP99));
+		}
+
+		return new LoadSettings(
+				Duration.parse(System.getProperty("load.warmup", "PT5S")),
+				Duration.parse(System.getProperty("load.duration", "PT20S")),
+				Integer.getInteger("load.concurrency", 16),
+				Double.parseDouble(System.getProperty("load.rate", "200")),
+				mix,
+				Integer.getInteger("load.seed-trips", 100),
+				defaultP99,
+				p99);
+	}
+}
@@ -0,0 +1,103 @@
+package com.lucas.planner.load;
+
+import com.lucas.planner.PlannerApplication;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara as threads de plataforma com as virtual threads (spring.threads.virtual.enabled) sob a mesma carga:
+ * sobe a aplicação uma vez em cada modo, cada uma com o seu banco H2 em memória, roda a mistura de LoadSettings
+ * em malha fechada e em malha aberta e imprime, por operação, a vazão e o p99 dos dois modos lado a lado.
+ * A tabela também fica em target/load/thread-modes.txt. Falha apenas se houver respostas com erro; a comparação é para leitura.
+ * Rode com mvn test -Pload-tests -Dtest=ThreadModeComparisonLoadTests; a diferença entre os modos aparece
+ * com muitos clientes, por exemplo -Dload.concurrency=400 -Dload.rate=2000.
+ */
+@Tag("load")
+class ThreadModeComparisonLoadTests {
+
+	private final LoadSettings settings = LoadSettings.fromSystemProperties();
+
+	@Test
+	void platformVersusVirtualThreads() throws Exception {
+		// Resultados por modo de threads e por malha
+		Map<String, Map<String, LoadGenerator>> results = new LinkedHashMap<>();
+		results.put("plataforma", run("plataforma", false));
+		results.put("virtual", run("virtual", true));
+
+		String table = compare(results);
+		System.out.println(table);
+		Files.createDirectories(Path.of("target", "load"));
+		Files.writeString(Path.of("target", "load", "thread-modes.txt"), table);
+
+		assertAll(results.entrySet().stream().flatMap(mode -> mode.getValue().entrySet().stream().flatMap(loop ->
+				loop.getValue().operationNames().stream().map(operation -> () ->
+						assertEquals(0, loop.getValue().errors(operation),
+								() -> mode.getKey() + "/" + loop.getKey() + "/" + operation + ": respostas com erro")))));
+	}
+
+	private Map<String, LoadGenerator> run(String mode, boolean virtualThreads) throws Exception {
+		Map<String, LoadGenerator> loops = new LinkedHashMap<>();
+
+		// Argumentos de linha de comando, para sobrepor o application.properties
+		try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(PlannerApplication.class).run(
+				"--server.port=0",
+				"--spring.threads.virtual.enabled=" + virtualThreads,
+				"--spring.datasource.url=jdbc:h2:mem:planner-" + mode + ";${planner.datasource.h2-options}",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=WARN",
+				"--planner.mail.file-sink.directory=target/load/mail-" + mode)) {
+			TripOperations operations = new TripOperations(context.getWebServer().getPort());
+			operations.seed(settings.seedTrips());
+
+			LoadGenerator closed = new LoadGenerator(operations.all(), settings.mix());
+			closed.runClosedLoop(settings.concurrency(), settings.warmup(), settings.duration());
+			System.out.println(closed.report("Threads " + mode + ", malha fechada"));
+			loops.put("fechada", closed);
+
+			LoadGenerator open = new LoadGenerator(operations.all(), settings.mix());
+			open.runOpenLoop(settings.rate(), settings.warmup(), settings.duration());
+			System.out.println(open.report("Threads " + mode + ", malha aberta"));
+			loops.put("aberta", open);
+		}
+
+		return loops;
+	}
+
+	// Vazão (requisições por segundo) e p99 (ms) de cada operação nos dois modos, por malha
+	private String compare(Map<String, Map<String, LoadGenerator>> results) {
+		double seconds = settings.duration().toMillis() / 1000.0;
+		StringBuilder table = new StringBuilder(String.format("%nPlataforma x virtual threads (%d clientes na malha fechada, %.0f req/s na malha aberta)%n",
+				settings.concurrency(), settings.rate()));
+		table.append(String.format("%-8s %-10s %12s %12s %12s %12s%n", "malha", "op", "req/s plat", "req/s virt", "p99 plat", "p99 virt"));
+
+		for (String loop : new String[]{"fechada", "aberta"}) {
+			LoadGenerator platform = results.get("plataforma").get(loop);
+			LoadGenerator virtual = results.get("virtual").get(loop);
+			long platformTotal = 0;
+			long virtualTotal = 0;
+
+			for (String operation : platform.operationNames()) {
+				Histogram p = platform.histograms().get(operation);
+				Histogram v = virtual.histograms().get(operation);
+				platformTotal += p.getTotalCount();
+				virtualTotal += v.getTotalCount();
+				table.append(String.format("%-8s %-10s %12.1f %12.1f %12.2f %12.2f%n", loop, operation,
+						p.getTotalCount() / seconds, v.getTotalCount() / seconds,
+						LoadGenerator.millis(p.getValueAtPercentile(99)), LoadGenerator.millis(v.getValueAtPercentile(99))));
+			}
+			table.append(String.format("%-8s %-10s %12.1f %12.1f%n", loop, "total", platformTotal / seconds, virtualTotal / seconds));
+		}
+		return table.toString();
+	}
+}
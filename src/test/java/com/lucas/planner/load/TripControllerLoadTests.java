@@ -0,0 +1,86 @@
+package com.lucas.planner.load;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Teste de carga do TripController: sobe a aplicação em uma porta aleatória com o H2 em memória e envia a mistura
+ * de criação, convite, confirmação, atividade, listagem e itinerário, primeiro em malha fechada e depois em malha aberta.
+ * Falha se alguma operação tiver erros ou p99 acima do limite configurado. Fica fora do build padrão;
+ * rode com mvn test -Pload-tests e ajuste com as propriedades descritas em LoadSettings.
+ * As distribuições completas ficam em target/load/[modo]-[operação].hgrm.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"planner.mail.file-sink.directory=target/load/mail",
+		"logging.level.root=WARN"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TripControllerLoadTests {
+
+	private final LoadSettings settings = LoadSettings.fromSystemProperties();
+
+	private TripOperations operations;
+
+	@LocalServerPort
+	private int port;
+
+	@BeforeAll
+	void seedTrips() throws Exception {
+		operations = new TripOperations(port);
+		operations.seed(settings.seedTrips());
+	}
+
+	@Test
+	void closedLoop() throws Exception {
+		LoadGenerator generator = new LoadGenerator(operations.all(), settings.mix());
+		generator.runClosedLoop(settings.concurrency(), settings.warmup(), settings.duration());
+		assertSlo("fechado", generator);
+	}
+
+	@Test
+	void openLoop() throws Exception {
+		LoadGenerator generator = new LoadGenerator(operations.all(), settings.mix());
+		generator.runOpenLoop(settings.rate(), settings.warmup(), settings.duration());
+		assertSlo("aberto", generator);
+	}
+
+	private void assertSlo(String mode, LoadGenerator generator) throws IOException {
+		System.out.println(generator.report("Modo " + mode));
+		writeDistributions(mode, generator);
+
+		assertAll(generator.operationNames().stream().map(operation -> () -> {
+			Histogram histogram = generator.histograms().get(operation);
+			long p99 = histogram.getValueAtPercentile(99);
+			long limit = settings.p99Millis().get(operation);
+
+			assertEquals(0, generator.errors(operation), () -> operation + ": respostas com erro");
+			assertTrue(p99 <= limit * 1000, () -> String.format("%s: p99 de %.2f ms acima do limite de %d ms", operation, LoadGenerator.millis(p99), limit));
+		}));
+	}
+
+	// Grava a distribuição completa de cada operação, em milissegundos, no formato .hgrm do HdrHistogram
+	private static void writeDistributions(String mode, LoadGenerator generator) throws IOException {
+		Path directory = Files.createDirectories(Path.of("target", "load"));
+		for (Map.Entry<String, Histogram> entry : generator.histograms().entrySet()) {
+			try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(mode + "-" + entry.getKey() + ".hgrm")))) {
+				entry.getValue().outputPercentileDistribution(out, 1000.0);
+			}
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package com.lucas.planner.load;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Teste de carga do feed de eventos (GET /trips/{id}/events): abre load.sse.subscribers conexões SSE (padrão 10000)
+ * distribuídas entre load.sse.trips viagens (padrão 100), publica load.sse.events links por viagem (padrão 10)
+ * e confere que todo inscrito recebeu todos os eventos, em ordem. A latência de cada entrega, contada do início
+ * do POST que gerou o evento, vai para o histograma impresso ao fim. Depois os clientes desconectam e um último evento
+ * por viagem faz o servidor perceber as conexões fechadas: o gauge planner.events.subscribers precisa voltar a zero.
+ * Cada conexão usa um descritor de arquivo no cliente e outro no servidor, os dois nesta JVM; com 10000 inscritos
+ * o limite de arquivos abertos do processo precisa passar de 20000, e o heap padrão não basta (-DargLine=-Xmx3g).
+ * Rode com mvn test -Pload-tests -Dtest=TripEventsLoadTests -DargLine=-Xmx3g.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"planner.mail.file-sink.directory=target/load/mail",
+		"logging.level.root=WARN",
+		// Uma conexão aberta por inscrito, além das requisições de publicação
+		"server.tomcat.max-connections=30000"
+})
+class TripEventsLoadTests {
+
+	private static final Pattern TRIP_ID = Pattern.compile("\"tripId\":\"([0-9a-f-]+)\"");
+
+	private final int subscribers = Integer.getInteger("load.sse.subscribers", 10_000);
+
+	private final int trips = Integer.getInteger("load.sse.trips", 100);
+
+	private final int events = Integer.getInteger("load.sse.events", 10);
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.executor(Executors.newVirtualThreadPerTaskExecutor())
+			.build();
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@LocalServerPort
+	private int port;
+
+	@Test
+	void fanOutToSubscribers() throws Exception {
+		List<String> tripIds = new ArrayList<>();
+		for (int i = 0; i < trips; i++) {
+			tripIds.add(createTrip());
+		}
+
+		// Início do POST de cada evento, por viagem e ordem de publicação
+		AtomicLongArray published = new AtomicLongArray(trips * events);
+		Histogram latencies = new ConcurrentHistogram(3);
+		CountDownLatch connected = new CountDownLatch(subscribers);
+		CountDownLatch received = new CountDownLatch(subscribers);
+		CountDownLatch disconnect = new CountDownLatch(1);
+		AtomicInteger failures = new AtomicInteger();
+		ConcurrentLinkedQueue<Stream<String>> streams = new ConcurrentLinkedQueue<>();
+
+		ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+		try {
+			for (int s = 0; s < subscribers; s++) {
+				int trip = s % trips;
+				clients.submit(() -> {
+					HttpRequest request = HttpRequest.newBuilder(uri("/trips/" + tripIds.get(trip) + "/events")).GET().build();
+					try (Stream<String> lines = client.send(request, HttpResponse.BodyHandlers.ofLines()).body()) {
+						streams.add(lines);
+						connected.countDown();
+
+						int seen = 0;
+						Iterator<String> iterator = lines.iterator();
+						while (seen < events && iterator.hasNext()) {
+							if (iterator.next().startsWith("event:")) {
+								latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - published.get(trip * events + seen)));
+								seen++;
+							}
+						}
+
+						if (seen == events) {
+							received.countDown();
+						}
+						disconnect.await();
+					} catch (Exception e) {
+						failures.incrementAndGet();
+						connected.countDown();
+					}
+					return null;
+				});
+			}
+
+			assertTrue(connected.await(2, TimeUnit.MINUTES), "Inscritos sem conexão: " + connected.getCount());
+			assertEquals(0, failures.get(), "Conexões com erro");
+			assertEquals(subscribers, subscriberGauge());
+
+			// Um publicador por viagem, cada um com os seus eventos em sequência
+			try (ExecutorService publishers = Executors.newVirtualThreadPerTaskExecutor()) {
+				for (int t = 0; t < trips; t++) {
+					int trip = t;
+					publishers.submit(() -> {
+						for (int e = 0; e < events; e++) {
+							published.set(trip * events + e, System.nanoTime());
+							assertEquals(200, postLink(tripIds.get(trip)));
+						}
+						return null;
+					});
+				}
+			}
+
+			boolean delivered = received.await(2, TimeUnit.MINUTES);
+			System.out.println(report(latencies));
+			assertTrue(delivered, "Inscritos sem todos os eventos: " + received.getCount());
+		} finally {
+			// Fecha as conexões, inclusive as de inscritos ainda à espera de eventos, e espera as tarefas terminarem
+			disconnect.countDown();
+			streams.forEach(Stream::close);
+			clients.shutdownNow();
+			clients.awaitTermination(1, TimeUnit.MINUTES);
+		}
+
+		// As conexões fechadas só são percebidas na próxima escrita, que encerra o emitter com erro e remove o inscrito
+		for (String tripId : tripIds) {
+			postLink(tripId);
+		}
+		long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+		while (subscriberGauge() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(100);
+		}
+		assertEquals(0, subscriberGauge(), "Inscritos mantidos depois da desconexão");
+	}
+
+	private String createTrip() throws Exception {
+		HttpResponse<String> response = client.send(post("/trips", """
+				{"destination":"Rio","starts_at":"2024-07-01T10:00:00","ends_at":"2024-07-05T10:00:00","emails_to_invite":[],"owner_email":"dono@x.com","owner_name":"Dono"}
+				"""), HttpResponse.BodyHandlers.ofString());
+
+		Matcher matcher = TRIP_ID.matcher(response.body());
+		assertTrue(response.statusCode() == 200 && matcher.find(), "Falha ao criar as viagens");
+		return matcher.group(1);
+	}
+
+	private int postLink(String tripId) throws Exception {
+		return client.send(post("/trips/" + tripId + "/links", "{\"title\":\"Reserva\",\"url\":\"https://x.com\"}"), HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	private HttpRequest post(String path, String json) {
+		return HttpRequest.newBuilder(uri(path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json))
+				.build();
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private long subscriberGauge() {
+		return (long) meterRegistry.get("planner.events.subscribers").gauge().value();
+	}
+
+	private String report(Histogram latencies) {
+		return String.format("%nFeed de eventos: %d inscritos em %d viagens, %d eventos por viagem%n%9s %9s %9s %9s %9s%n%9d %9.2f %9.2f %9.2f %9.2f%n",
+				subscribers, trips, events, "entregas", "p50", "p99", "p99.9", "max",
+				latencies.getTotalCount(), LoadGenerator.millis(latencies.getValueAtPercentile(50)), LoadGenerator.millis(latencies.getValueAtPercentile(99)),
+				LoadGenerator.millis(latencies.getValueAtPercentile(99.9)), LoadGenerator.millis(latencies.getMaxValue()));
+	}
+}
@@ -0,0 +1,102 @@
+package com.lucas.planner.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Operações da mistura dos testes de carga, enviadas por HTTP a uma aplicação em localhost:
+ * criação, convite, confirmação, atividade, listagem de uma coleção filha e itinerário.
+ * Guarda as viagens criadas, que são sorteadas pelas operações que precisam de uma viagem existente.
+ */
+final class TripOperations {
+
+	private static final Pattern TRIP_ID = Pattern.compile("\"tripId\":\"([0-9a-f-]+)\"");
+
+	private static final List<String> CHILDREN = List.of("participants", "activities", "links");
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.executor(Executors.newVirtualThreadPerTaskExecutor())
+			.build();
+
+	private final String baseUrl;
+
+	private final List<String> trips = new ArrayList<>();
+
+	private final AtomicLong invites = new AtomicLong();
+
+	TripOperations(int port) {
+		this.baseUrl = "http://localhost:" + port;
+	}
+
+	/**
+	 * Cria as viagens iniciais, antes do aquecimento.
+	 */
+	void seed(int count) throws Exception {
+		for (int i = 0; i < count; i++) {
+			if (!createTrip()) {
+				throw new IllegalStateException("Falha ao criar as viagens iniciais");
+			}
+		}
+	}
+
+	Map<String, LoadGenerator.Operation> all() {
+		Map<String, LoadGenerator.Operation> operations = new LinkedHashMap<>();
+		operations.put("create", this::createTrip);
+		operations.put("invite", () -> send(post("/trips/" + randomTrip() + "/invite", "{\"email\":\"convidado" + invites.incrementAndGet() + "@x.com\"}")).statusCode() == 200);
+		operations.put("confirm", () -> send(get("/trips/" + randomTrip() + "/confirm")).statusCode() == 200);
+		operations.put("activity", () -> send(post("/trips/" + randomTrip() + "/activities", "{\"title\":\"Passeio\",\"occurs_at\":\"2024-07-02T10:00:00\"}")).statusCode() == 200);
+		operations.put("list", () -> send(get("/trips/" + randomTrip() + "/" + CHILDREN.get(ThreadLocalRandom.current().nextInt(CHILDREN.size())))).statusCode() == 200);
+		operations.put("itinerary", () -> send(get("/trips/" + randomTrip() + "/itinerary")).statusCode() == 200);
+		return operations;
+	}
+
+	private boolean createTrip() throws Exception {
+		HttpResponse<String> response = send(post("/trips", """
+				{"destination":"Rio","starts_at":"2024-07-01T10:00:00","ends_at":"2024-07-05T10:00:00","emails_to_invite":["a@x.com","b@x.com"],"owner_email":"dono@x.com","owner_name":"Dono"}
+				"""));
+
+		Matcher matcher = TRIP_ID.matcher(response.body());
+		if (response.statusCode() != 200 || !matcher.find()) {
+			return false;
+		}
+
+		synchronized (trips) {
+			trips.add(matcher.group(1));
+		}
+		return true;
+	}
+
+	private String randomTrip() {
+		synchronized (trips) {
+			return trips.get(ThreadLocalRandom.current().nextInt(trips.size()));
+		}
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+	}
+
+	private HttpRequest post(String path, String json) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json))
+				.build();
+	}
+
+	private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+}
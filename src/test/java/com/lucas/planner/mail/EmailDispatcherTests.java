@@ -0,0 +1,169 @@
+package com.lucas.planner.mail;
+
+import com.lucas.planner.trip.Trip;
+import com.lucas.planner.trip.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Despachante de emails chamado diretamente, com o agendamento parado e um MailSink que registra os envios.
+ * As mensagens de cada teste são devidas desde 2000, para virem antes das enfileiradas por outros testes no banco compartilhado.
+ */
+@SpringBootTest(properties = {"planner.mail.poll-interval=PT1H", "planner.mail.sink=recording", "planner.mail.claim-timeout=10m"})
+@Import(EmailDispatcherTests.RecordingMailSinkConfiguration.class)
+class EmailDispatcherTests {
+
+	private static final LocalDateTime DUE = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+	@Autowired
+	private EmailDispatcher emailDispatcher;
+
+	@Autowired
+	private RecordingMailSink mailSink;
+
+	@Autowired
+	private TripRepository tripRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private UUID tripId;
+
+	@BeforeEach
+	void setUp() {
+		Trip trip = new Trip(null, "Rio", LocalDateTime.of(2024, 7, 1, 10, 0), LocalDateTime.of(2024, 7, 5, 10, 0), true, "O", "o@x.com", null);
+		tripRepository.save(trip);
+		tripId = trip.getId();
+	}
+
+	@Test
+	void simultaneousPollsSendEachMessageOnce() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			insert("p" + i + "@x.com", "PENDING", null);
+		}
+
+		// Todas as leituras encontram as mesmas mensagens devidas; só as reservadas por cada uma são enviadas por ela
+		ExecutorService pollers = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> polls = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				polls.add(pollers.submit(() -> {
+					start.await();
+					emailDispatcher.dispatchPending();
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> poll : polls) {
+				poll.get();
+			}
+		} finally {
+			pollers.shutdown();
+		}
+
+		awaitStatus("SENT", 100);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(1, mailSink.sent("p" + i + "@x.com", tripId), "Envios de p" + i);
+		}
+	}
+
+	@Test
+	void onlyStaleClaimsReturnToTheQueue() throws Exception {
+		// Uma reserva vencida, de um despachante que parou no meio do envio, e uma ainda em andamento
+		insert("vencida@x.com", "SENDING", LocalDateTime.now().minusMinutes(11));
+		insert("em-andamento@x.com", "SENDING", LocalDateTime.now().minusMinutes(1));
+
+		emailDispatcher.dispatchPending();
+
+		awaitStatus("SENT", 1);
+		assertEquals(1, mailSink.sent("vencida@x.com", tripId));
+		assertEquals(0, mailSink.sent("em-andamento@x.com", tripId));
+		assertEquals("SENDING", jdbcTemplate.queryForObject("SELECT status FROM email_outbox WHERE trip_id = ? AND recipient = 'em-andamento@x.com'", String.class, tripId));
+	}
+
+	@Test
+	void failedSendIsRescheduledUnderItsClaim() throws Exception {
+		insert("falha@x.com", "PENDING", null);
+		mailSink.failing.add(tripId);
+
+		emailDispatcher.dispatchPending();
+
+		// A falha conta uma tentativa e devolve a mensagem para a fila, com nova tentativa no futuro
+		awaitStatus("PENDING", 1);
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT attempts FROM email_outbox WHERE trip_id = ?", Integer.class, tripId));
+		assertTrue(jdbcTemplate.queryForObject("SELECT next_attempt_at FROM email_outbox WHERE trip_id = ?", LocalDateTime.class, tripId).isAfter(DUE));
+	}
+
+	private void insert(String recipient, String status, LocalDateTime claimedAt) {
+		jdbcTemplate.update("INSERT INTO email_outbox (trip_id, recipient, status, attempts, next_attempt_at, created_at, claimed_at) VALUES (?, ?, ?, 0, ?, ?, ?)",
+				tripId, recipient, status, DUE, DUE, claimedAt);
+	}
+
+	// Os lotes são enviados fora da thread da leitura: espera as mensagens da viagem chegarem ao estado
+	private void awaitStatus(String status, int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + 10_000_000_000L;
+		while (count(status) < expected && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+		assertEquals(expected, count(status));
+	}
+
+	private int count(String status) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_outbox WHERE trip_id = ? AND status = ?", Integer.class, tripId, status);
+	}
+
+	static class RecordingMailSink implements MailSink {
+
+		private final Map<String, AtomicInteger> sent = new ConcurrentHashMap<>();
+
+		// Viagens cujo próximo envio falha; os lotes de outras viagens enfileiradas no banco compartilhado são enviados normalmente
+		private final Set<UUID> failing = ConcurrentHashMap.newKeySet();
+
+		@Override
+		public void send(UUID tripId, List<EmailMessage> messages) throws Exception {
+			if (failing.remove(tripId)) {
+				throw new IllegalStateException("Falha simulada");
+			}
+			for (EmailMessage message : messages) {
+				sent.computeIfAbsent(tripId + "/" + message.to(), key -> new AtomicInteger()).incrementAndGet();
+			}
+		}
+
+		int sent(String recipient, UUID tripId) {
+			AtomicInteger count = sent.get(tripId + "/" + recipient);
+			return count == null ? 0 : count.get();
+		}
+	}
+
+	@TestConfiguration
+	static class RecordingMailSinkConfiguration {
+
+		@Bean
+		RecordingMailSink recordingMailSink() {
+			return new RecordingMailSink();
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package com.lucas.planner.pagination;
+
+import com.jayway.jsonpath.JsonPath;
+import com.lucas.planner.trip.Trip;
+import com.lucas.planner.trip.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Paginação por cursor das listagens: percorre todas as páginas com empates na primeira coluna da ordenação,
+ * recusa cursores adulterados com 400 e restringe o limit ao intervalo [1, Cursors.MAX_LIMIT].
+ * A ordem esperada vem do próprio banco (ORDER BY), que compara UUIDs de forma diferente de UUID.compareTo.
+ */
+@SpringBootTest(properties = "planner.mail.poll-interval=PT1H")
+@AutoConfigureMockMvc
+class CursorPaginationTests {
+
+	private static final LocalDateTime STARTS_AT = LocalDateTime.of(2024, 7, 1, 10, 0);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TripRepository tripRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private String ownerEmail;
+
+	private UUID tripId;
+
+	@BeforeEach
+	void setUp() {
+		ownerEmail = "dono-" + UUID.randomUUID() + "@x.com";
+		tripId = createTrip(STARTS_AT);
+	}
+
+	@Test
+	void walksActivitiesWithTiedOccursAt() throws Exception {
+		// 7 atividades no mesmo instante, entre outras antes e depois, em páginas de 3: o empate atravessa as páginas
+		insertActivities(2, STARTS_AT.plusHours(1));
+		insertActivities(7, STARTS_AT.plusHours(2));
+		insertActivities(2, STARTS_AT.plusHours(3));
+
+		List<String> expected = jdbcTemplate.queryForList("SELECT CAST(id AS VARCHAR) FROM activities WHERE trip_id = ? ORDER BY occurs_at, id", String.class, tripId);
+
+		assertEquals(expected, walk(() -> get("/trips/{id}/activities", tripId), 3));
+	}
+
+	@Test
+	void walksTripSearchWithTiedStartsAt() throws Exception {
+		// A viagem do setUp e mais 6 do mesmo dono: 4 com o mesmo início, em páginas de 2
+		for (int i = 0; i < 4; i++) {
+			createTrip(STARTS_AT.plusDays(1));
+		}
+		createTrip(STARTS_AT.minusDays(1));
+		createTrip(STARTS_AT.plusDays(2));
+
+		List<String> expected = jdbcTemplate.queryForList("SELECT CAST(id AS VARCHAR) FROM trips WHERE owner_email = ? ORDER BY starts_at DESC, id DESC", String.class, ownerEmail);
+
+		assertEquals(7, expected.size());
+		assertEquals(expected, walk(() -> get("/trips").param("owner_email", ownerEmail), 2));
+	}
+
+	@Test
+	void walksParticipantsAndLinks() throws Exception {
+		jdbcTemplate.update("INSERT INTO participants (id, name, email, is_confirmed, trip_id) SELECT RANDOM_UUID(), 'P', 'p' || X || '@x.com', FALSE, ? FROM SYSTEM_RANGE(1, 5)", tripId);
+		jdbcTemplate.update("INSERT INTO links (id, title, url, trip_id) SELECT RANDOM_UUID(), 'L', 'https://x.com/' || X, ? FROM SYSTEM_RANGE(1, 5)", tripId);
+
+		assertEquals(jdbcTemplate.queryForList("SELECT CAST(id AS VARCHAR) FROM participants WHERE trip_id = ? ORDER BY id", String.class, tripId),
+				walk(() -> get("/trips/{id}/participants", tripId), 2));
+		assertEquals(jdbcTemplate.queryForList("SELECT CAST(id AS VARCHAR) FROM links WHERE trip_id = ? ORDER BY id", String.class, tripId),
+				walk(() -> get("/trips/{id}/links", tripId), 2));
+	}
+
+	@Test
+	void tamperedCursorsAreBadRequests() throws Exception {
+		List<String> cursors = List.of(
+				// Não é base64
+				"%%%",
+				// Quantidade de valores errada para cada listagem
+				encode("a|b|c"),
+				// Data e UUID inválidos
+				encode("ontem|" + UUID.randomUUID()),
+				encode("2024-07-01T10:00:00|nao-e-uuid"),
+				encode("nao-e-uuid"));
+
+		for (String cursor : cursors) {
+			mockMvc.perform(get("/trips/{id}/activities", tripId).param("limit", "10").param("cursor", cursor)).andExpect(status().isBadRequest());
+			mockMvc.perform(get("/trips/{id}/participants", tripId).param("limit", "10").param("cursor", cursor)).andExpect(status().isBadRequest());
+			mockMvc.perform(get("/trips/{id}/links", tripId).param("limit", "10").param("cursor", cursor)).andExpect(status().isBadRequest());
+			mockMvc.perform(get("/trips").param("owner_email", ownerEmail).param("cursor", cursor)).andExpect(status().isBadRequest());
+		}
+	}
+
+	@Test
+	void limitIsClamped() throws Exception {
+		insertActivities(Cursors.MAX_LIMIT + 10, STARTS_AT.plusHours(1));
+
+		for (String limit : List.of("0", "-5")) {
+			mockMvc.perform(get("/trips/{id}/activities", tripId).param("limit", limit))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.items.length()").value(1));
+		}
+		mockMvc.perform(get("/trips/{id}/activities", tripId).param("limit", "100000"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(Cursors.MAX_LIMIT));
+	}
+
+	// Segue os cursores até a última página e devolve os ids na ordem recebida; a última página não tem cursor
+	private List<String> walk(Supplier<MockHttpServletRequestBuilder> request, int limit) throws Exception {
+		List<String> ids = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+
+		do {
+			MockHttpServletRequestBuilder page = request.get().param("limit", String.valueOf(limit));
+			if (cursor != null) {
+				page.param("cursor", cursor);
+			}
+			String body = mockMvc.perform(page).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+			List<String> items = JsonPath.read(body, "$.items[*].id");
+			assertTrue(items.size() <= limit);
+			ids.addAll(items);
+			cursor = JsonPath.read(body, "$.next_cursor");
+			pages++;
+		} while (cursor != null && pages < 100);
+
+		assertNull(cursor, "Páginas demais");
+		return ids;
+	}
+
+	private UUID createTrip(LocalDateTime startsAt) {
+		Trip trip = new Trip(null, "Rio", startsAt, startsAt.plusDays(4), false, "Dono", ownerEmail, null);
+		tripRepository.save(trip);
+		return trip.getId();
+	}
+
+	private void insertActivities(int count, LocalDateTime occursAt) {
+		jdbcTemplate.update("INSERT INTO activities (id, title, occurs_at, trip_id) SELECT RANDOM_UUID(), 'Atividade ' || X, ?, ? FROM SYSTEM_RANGE(1, ?)", occursAt, tripId, count);
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
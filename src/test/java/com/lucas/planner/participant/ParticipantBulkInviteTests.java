@@ -0,0 +1,121 @@
+package com.lucas.planner.participant;
+
+import com.lucas.planner.stats.TripStatsService;
+import com.lucas.planner.trip.Trip;
+import com.lucas.planner.trip.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Convite em massa (POST /trips/{id}/invites:bulk) em uma viagem já confirmada, com lotes de 2 emails,
+ * para que corpos inválidos no meio da lista aconteçam depois de lotes já enviados ao banco.
+ */
+@SpringBootTest(properties = {"planner.mail.poll-interval=PT1H", "planner.participants.bulk-invite.batch-size=2"})
+@AutoConfigureMockMvc
+class ParticipantBulkInviteTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TripRepository tripRepository;
+
+	@Autowired
+	private TripStatsService tripStatsService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private UUID tripId;
+
+	@BeforeEach
+	void setUp() {
+		Trip trip = new Trip(null, "Rio", LocalDateTime.of(2024, 7, 1, 10, 0), LocalDateTime.of(2024, 7, 5, 10, 0), true, "O", "o@x.com", null);
+		tripRepository.save(trip);
+		tripId = trip.getId();
+		tripStatsService.createStats(tripId);
+	}
+
+	@Test
+	void invitesEveryEmailInBatches() throws Exception {
+		bulkInvite("[\"a@x.com\",\"b@x.com\",\"c@x.com\",\"d@x.com\",\"e@x.com\"]")
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.received").value(5))
+				.andExpect(jsonPath("$.invited").value(5))
+				.andExpect(jsonPath("$.skipped").value(0));
+
+		assertEquals(List.of("a@x.com", "b@x.com", "c@x.com", "d@x.com", "e@x.com"), emails());
+		// A viagem já está confirmada: cada novo participante recebe o email de confirmação
+		assertEquals(5, outbox());
+		assertEquals(5, tripStatsService.getStats(List.of(tripId)).get(0).participants());
+	}
+
+	@Test
+	void skipsExistingAndRepeatedEmailsAfterNormalizing() throws Exception {
+		bulkInvite("[\"a@x.com\"]").andExpect(status().isOk());
+
+		// Já convidado, repetido na requisição e variações de caixa e espaços do mesmo email
+		bulkInvite("[\" A@x.com\",\"b@x.com\",\"B@X.COM \",\"b@x.com\",\"c@x.com\"]")
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.received").value(5))
+				.andExpect(jsonPath("$.invited").value(2))
+				.andExpect(jsonPath("$.skipped").value(3));
+
+		assertEquals(List.of("a@x.com", "b@x.com", "c@x.com"), emails());
+		assertEquals(3, outbox());
+		assertEquals(3, tripStatsService.getStats(List.of(tripId)).get(0).participants());
+	}
+
+	@Test
+	void malformedBodyRollsBackEarlierBatches() throws Exception {
+		// Os dois primeiros lotes já foram gravados quando o corpo se mostra inválido: um item que não é email,
+		// um email vazio e um JSON truncado (JsonProcessingException, uma IOException)
+		for (String body : List.of(
+				"[\"a@x.com\",\"b@x.com\",\"c@x.com\",\"d@x.com\",5]",
+				"[\"a@x.com\",\"b@x.com\",\"c@x.com\",\"d@x.com\",\" \"]",
+				"[\"a@x.com\",\"b@x.com\",\"c@x.com\",\"d@x.com\",\"e@x")) {
+			bulkInvite(body).andExpect(status().isBadRequest());
+		}
+		bulkInvite("{\"emails\":[]}").andExpect(status().isBadRequest());
+
+		assertEquals(List.of(), emails());
+		assertEquals(0, outbox());
+		assertEquals(0, tripStatsService.getStats(List.of(tripId)).get(0).participants());
+	}
+
+	@Test
+	void unknownTripIsNotFound() throws Exception {
+		mockMvc.perform(post("/trips/{id}/invites:bulk", UUID.randomUUID()).contentType(MediaType.APPLICATION_JSON).content("[\"ninguem@x.com\"]"))
+				.andExpect(status().isNotFound());
+
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM participants WHERE email = 'ninguem@x.com'", Integer.class));
+	}
+
+	private ResultActions bulkInvite(String body) throws Exception {
+		return mockMvc.perform(post("/trips/{id}/invites:bulk", tripId).contentType(MediaType.APPLICATION_JSON).content(body));
+	}
+
+	private List<String> emails() {
+		return jdbcTemplate.queryForList("SELECT email FROM participants WHERE trip_id = ? ORDER BY email", String.class, tripId);
+	}
+
+	private int outbox() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_outbox WHERE trip_id = ?", Integer.class, tripId);
+	}
+}
@@ -0,0 +1,89 @@
+package com.lucas.planner.participant;
+
+import com.lucas.planner.stats.TripStats;
+import com.lucas.planner.stats.TripStatsService;
+import com.lucas.planner.trip.Trip;
+import com.lucas.planner.trip.TripRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Migração V14: participantes gravados antes da normalização dos emails, com maiúsculas, espaços e repetições
+ * que só aparecem depois de normalizados. O script roda de novo sobre o banco compartilhado, o que é seguro:
+ * depois da primeira execução ele não encontra nada a alterar.
+ */
+@SpringBootTest(properties = "planner.mail.poll-interval=PT1H")
+@AutoConfigureMockMvc
+class ParticipantEmailMigrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TripRepository tripRepository;
+
+	@Autowired
+	private TripStatsService tripStatsService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	void legacyEmailsAreNormalizedAndDeduplicated() throws Exception {
+		Trip trip = new Trip(null, "Rio", LocalDateTime.of(2024, 7, 1, 10, 0), LocalDateTime.of(2024, 7, 5, 10, 0), true, "O", " Dono-" + UUID.randomUUID() + "@X.com", null);
+		tripRepository.save(trip);
+		UUID tripId = trip.getId();
+		tripStatsService.createStats(tripId);
+
+		// Três variações do mesmo email, uma delas confirmada, e um email só com maiúsculas, contados como na V10
+		insertParticipant(tripId, "Ana@X.com", false);
+		insertParticipant(tripId, " ana@x.com", true);
+		insertParticipant(tripId, "ANA@x.com ", false);
+		insertParticipant(tripId, "BRUNO@x.com", false);
+		jdbcTemplate.update("UPDATE trip_stats SET participants = 4, confirmed_participants = 1 WHERE trip_id = ? AND stripe = 0", tripId);
+		long revision = tripRepository.findDataById(tripId).orElseThrow().version();
+
+		try (Connection connection = dataSource.getConnection()) {
+			ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V14__normalize-participant-emails.sql"));
+		}
+
+		// Fica o participante confirmado, com o email normalizado
+		assertEquals(List.of("ana@x.com:TRUE", "bruno@x.com:FALSE"),
+				jdbcTemplate.queryForList("SELECT email || ':' || is_confirmed FROM participants WHERE trip_id = ? ORDER BY email", String.class, tripId));
+		TripStats stats = tripStatsService.getStats(List.of(tripId)).get(0);
+		assertEquals(2, stats.participants());
+		assertEquals(1, stats.confirmed_participants());
+		assertEquals(trip.getOwnerEmail().strip().toLowerCase(), jdbcTemplate.queryForObject("SELECT owner_email FROM trips WHERE id = ?", String.class, tripId));
+		// A revisão muda com o email do dono (versão) e com os emails dos participantes (alterações)
+		assertEquals(revision + 2, tripRepository.findDataById(tripId).orElseThrow().version());
+
+		// O participante antigo com maiúsculas agora confirma pelo email normalizado
+		mockMvc.perform(post("/trips/{id}/rsvp", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"Bruno@X.com\",\"name\":\"B\"}"))
+				.andExpect(status().isOk());
+		assertEquals(2, tripStatsService.getStats(List.of(tripId)).get(0).confirmed_participants());
+	}
+
+	private void insertParticipant(UUID tripId, String email, boolean confirmed) {
+		jdbcTemplate.update("INSERT INTO participants (id, name, email, is_confirmed, trip_id) VALUES (RANDOM_UUID(), '', ?, ?, ?)", email, confirmed, tripId);
+	}
+}
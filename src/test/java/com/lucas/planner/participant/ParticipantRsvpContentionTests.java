@@ -0,0 +1,223 @@
+package com.lucas.planner.participant;
+
+import com.lucas.planner.stats.TripStatsService;
+import com.lucas.planner.trip.Trip;
+import com.lucas.planner.trip.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Dispara confirmações e convites simultâneos contra uma mesma viagem e confere que nenhum se perde,
+ * que retentativas não alteram nada, que convites concorrentes do mesmo email não duplicam o participante
+ * que confirmações em paralelo com atualizações da viagem ou com leituras em lote não deixam uma revisão velha no cache,
+ * que a troca de nome de um convidado já confirmado muda a ETag e que confirmações simultâneas da viagem enfileiram os emails dos participantes uma única vez.
+ */
+@SpringBootTest(properties = "planner.mail.poll-interval=PT1H")
+@AutoConfigureMockMvc
+class ParticipantRsvpContentionTests {
+
+	private static final int INVITEES = 10_000;
+
+	private static final int THREADS = 32;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TripRepository tripRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TripStatsService tripStatsService;
+
+	private UUID tripId;
+
+	@BeforeEach
+	void setUp() {
+		Trip trip = new Trip(null, "Rio", LocalDateTime.of(2024, 7, 1, 10, 0), LocalDateTime.of(2024, 7, 5, 10, 0), true, "O", "o@x.com", null);
+		tripRepository.save(trip);
+		tripId = trip.getId();
+		tripStatsService.createStats(tripId);
+
+		jdbcTemplate.batchUpdate("INSERT INTO participants (id, name, email, is_confirmed, trip_id) VALUES (RANDOM_UUID(), '', ?, FALSE, ?)",
+				IntStream.range(0, INVITEES).boxed().toList(), 1000, (statement, i) -> {
+					statement.setString(1, "p" + i + "@x.com");
+					statement.setObject(2, tripId);
+				});
+	}
+
+	@Test
+	void simultaneousConfirmationsToOneTrip() throws Exception {
+		long version = version();
+		long revision = revision();
+
+		List<Integer> statuses = concurrently(INVITEES, i -> rsvp("p" + i + "@x.com", "P" + i));
+
+		assertEquals(List.of(200), statuses.stream().distinct().toList());
+		assertEquals(INVITEES, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM participants WHERE trip_id = ? AND is_confirmed AND name = CONCAT('P', SUBSTRING(email, 2, LOCATE('@', email) - 2))", Integer.class, tripId));
+		// Cada confirmação que alterou o participante contou uma alteração e uma confirmação nas faixas da viagem, sem tocar a linha trips
+		assertEquals(version, version());
+		assertEquals(revision + INVITEES, revision());
+		assertEquals(INVITEES, tripStatsService.getStats(List.of(tripId)).get(0).confirmed_participants());
+
+		// Retentativas simultâneas das mesmas confirmações respondem 200 sem alterar nada
+		List<Integer> retries = concurrently(1000, i -> rsvp("p" + i + "@x.com", "P" + i));
+
+		assertEquals(List.of(200), retries.stream().distinct().toList());
+		assertEquals(revision + INVITEES, revision());
+		assertEquals(INVITEES, tripStatsService.getStats(List.of(tripId)).get(0).confirmed_participants());
+	}
+
+	@Test
+	void confirmationsDuringTripUpdates() throws Exception {
+		// Confirmações não tocam a linha trips, então não esbarram no lock otimista das atualizações da viagem;
+		// atualizações simultâneas entre si podem responder 409, nunca 500
+		List<Integer> statuses = concurrently(1000, i -> i % 10 == 0
+				? mockMvc.perform(put("/trips/{id}", tripId).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"destination\":\"Rio " + i + "\",\"starts_at\":\"2024-07-01T10:00:00\",\"ends_at\":\"2024-07-05T10:00:00\",\"owner_email\":\"o@x.com\",\"owner_name\":\"O\"}"))
+						.andReturn().getResponse().getStatus()
+				: rsvp("p" + i + "@x.com", "P" + i));
+
+		for (int i = 0; i < statuses.size(); i++) {
+			assertTrue(i % 10 == 0 ? List.of(200, 409).contains(statuses.get(i)) : statuses.get(i) == 200, "Requisição " + i + ": " + statuses.get(i));
+		}
+
+		// Nenhuma leitura anterior a um commit ficou no cache depois da invalidação: a ETag é a revisão atual
+		String etag = mockMvc.perform(get("/trips/{id}", tripId)).andReturn().getResponse().getHeader("ETag");
+		assertEquals("\"" + revision() + "\"", etag);
+	}
+
+	@Test
+	void confirmationsDuringBatchReads() throws Exception {
+		// As leituras em lote enchem o cache enquanto as confirmações o invalidam
+		String body = "{\"ids\":[\"" + tripId + "\"]}";
+		List<Integer> statuses = concurrently(1000, i -> i % 4 == 0
+				? mockMvc.perform(post("/trips:batchGet").contentType(MediaType.APPLICATION_JSON).content(body)).andReturn().getResponse().getStatus()
+				: rsvp("p" + i + "@x.com", "P" + i));
+
+		assertEquals(List.of(200), statuses.stream().distinct().toList());
+
+		// Nenhum retrato lido antes de um commit ficou no cache: a leitura seguinte, servida por ele, traz a revisão atual
+		String etag = mockMvc.perform(get("/trips/{id}", tripId)).andReturn().getResponse().getHeader("ETag");
+		assertEquals("\"" + revision() + "\"", etag);
+	}
+
+	@Test
+	void renameOfAConfirmedParticipantChangesTheEtag() throws Exception {
+		assertEquals(200, rsvp("p0@x.com", "Nome antigo"));
+		String etag = mockMvc.perform(get("/trips/{id}/participants", tripId)).andReturn().getResponse().getHeader("ETag");
+		long revision = revision();
+
+		// Já confirmado: o RSVP só troca o nome, sem mexer nos contadores, e ainda assim conta uma alteração na revisão
+		assertEquals(200, rsvp("p0@x.com", "Nome novo"));
+		assertEquals(revision + 1, revision());
+
+		String body = mockMvc.perform(get("/trips/{id}/participants", tripId).header("If-None-Match", etag))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertTrue(body.contains("\"name\":\"Nome novo\""));
+		assertFalse(body.contains("Nome antigo"));
+
+		// Repetir a troca com o mesmo nome não altera nada: a ETag nova continua válida
+		String renamed = mockMvc.perform(get("/trips/{id}/participants", tripId)).andReturn().getResponse().getHeader("ETag");
+		assertEquals(200, rsvp("p0@x.com", "Nome novo"));
+		mockMvc.perform(get("/trips/{id}/participants", tripId).header("If-None-Match", renamed)).andExpect(status().isNotModified());
+	}
+
+	@Test
+	void simultaneousTripConfirmations() throws Exception {
+		jdbcTemplate.update("UPDATE trips SET is_confirmed = FALSE WHERE id = ?", tripId);
+		long version = version();
+
+		List<Integer> statuses = concurrently(200, i -> mockMvc.perform(get("/trips/{id}/confirm", tripId)).andReturn().getResponse().getStatus());
+
+		assertEquals(List.of(200), statuses.stream().distinct().toList());
+		// Só a confirmação que mudou o estado incrementou a versão e enfileirou um email por participante
+		assertEquals(version + 1, version());
+		assertEquals(INVITEES, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_outbox WHERE trip_id = ?", Integer.class, tripId));
+	}
+
+	@Test
+	void simultaneousInvitesOfTheSameEmail() throws Exception {
+		List<String> ids = concurrently(200, i -> mockMvc.perform(post("/trips/{id}/invite", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"novo@x.com\"}"))
+				.andReturn().getResponse().getContentAsString());
+
+		assertEquals(1, new HashSet<>(ids).size());
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM participants WHERE trip_id = ? AND email = 'novo@x.com'", Integer.class, tripId));
+		// Só o convite que inseriu enfileirou o email de confirmação
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_outbox WHERE trip_id = ? AND recipient = 'novo@x.com'", Integer.class, tripId));
+		assertEquals(1, tripStatsService.getStats(List.of(tripId)).get(0).participants());
+	}
+
+	private int rsvp(String email, String name) throws Exception {
+		return mockMvc.perform(post("/trips/{id}/rsvp", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"" + email + "\",\"name\":\"" + name + "\"}"))
+				.andReturn().getResponse().getStatus();
+	}
+
+	private long version() {
+		return jdbcTemplate.queryForObject("SELECT version FROM trips WHERE id = ?", Long.class, tripId);
+	}
+
+	// Revisão da viagem, a base das ETags
+	private long revision() {
+		return tripRepository.findDataById(tripId).orElseThrow().version();
+	}
+
+	// Executa as requisições em um pool fixo, todas liberadas ao mesmo tempo
+	private <T> List<T> concurrently(int requests, Request<T> request) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+
+		try {
+			List<Future<T>> futures = new ArrayList<>(requests);
+			for (int i = 0; i < requests; i++) {
+				int index = i;
+				futures.add(executor.submit(() -> {
+					start.await();
+					return request.perform(index);
+				}));
+			}
+
+			start.countDown();
+
+			List<T> results = new ArrayList<>(requests);
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private interface Request<T> {
+		T perform(int index) throws Exception;
+	}
+}
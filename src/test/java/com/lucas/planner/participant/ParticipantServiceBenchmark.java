@@ -0,0 +1,71 @@
+package com.lucas.planner.participant;
+
+import com.lucas.planner.BenchmarkContexts;
+import com.lucas.planner.trip.Trip;
+import com.lucas.planner.trip.TripRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Inserção de participantes pelo ParticipantService.registerParticipantsToTrip, com o H2 em memória.
+ * Como (trip_id, email) é único, cada invocação convida emails que a viagem ainda não tem, gerados fora da medição.
+ * Os participantes inseridos são apagados ao fim de cada iteração para que a tabela não cresça entre as medições.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParticipantServiceBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	public int rows;
+
+	private ConfigurableApplicationContext context;
+
+	private ParticipantService participantService;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private Trip trip;
+
+	private List<String> emails;
+
+	// Invocações já feitas, usadas como prefixo dos emails da próxima
+	private int invocations;
+
+	@Setup
+	public void setUp() {
+		context = BenchmarkContexts.start();
+		participantService = context.getBean(ParticipantService.class);
+		jdbcTemplate = context.getBean(JdbcTemplate.class);
+		trip = context.getBean(TripRepository.class).findById(BenchmarkContexts.seedTrip(jdbcTemplate, 0, 0, 0)).orElseThrow();
+	}
+
+	@Setup(Level.Invocation)
+	public void nextEmails() {
+		String prefix = "i" + invocations++ + "-p";
+		emails = IntStream.range(0, rows).mapToObj(i -> prefix + i + "@x.com").toList();
+	}
+
+	@TearDown(Level.Iteration)
+	public void deleteParticipants() {
+		jdbcTemplate.update("DELETE FROM participants");
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public void registerParticipantsToTrip() {
+		participantService.registerParticipantsToTrip(emails, trip);
+	}
+}
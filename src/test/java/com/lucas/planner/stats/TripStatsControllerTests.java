@@ -0,0 +1,70 @@
+package com.lucas.planner.stats;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Percorre as escritas que mantêm os contadores (criação, convite, RSVP, atividade e link) e confere o que
+ * GET /trips/stats devolve, inclusive a ordem pedida e a omissão de viagens inexistentes.
+ */
+@SpringBootTest(properties = "planner.mail.poll-interval=PT1H")
+@AutoConfigureMockMvc
+class TripStatsControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void countersFollowTheWrites() throws Exception {
+		String first = createTrip("[\"a@x.com\",\"b@x.com\",\"a@x.com\"]");
+		String second = createTrip("[]");
+
+		mockMvc.perform(post("/trips/{id}/invite", first).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"c@x.com\"}"));
+		// Convite repetido não conta de novo
+		mockMvc.perform(post("/trips/{id}/invite", first).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"c@x.com\"}"));
+		mockMvc.perform(post("/trips/{id}/rsvp", first).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"a@x.com\",\"name\":\"A\"}"));
+		mockMvc.perform(post("/trips/{id}/rsvp", first).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"a@x.com\",\"name\":\"A\"}"));
+		mockMvc.perform(post("/trips/{id}/activities", first).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Praia\",\"occurs_at\":\"2024-07-02T10:00:00\"}"));
+		mockMvc.perform(post("/trips/{id}/links", second).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Reserva\",\"url\":\"https://x.com\"}"));
+
+		mockMvc.perform(get("/trips/stats").param("ids", second + "," + UUID.randomUUID() + "," + first))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].trip_id").value(second))
+				.andExpect(jsonPath("$[0].participants").value(0))
+				.andExpect(jsonPath("$[0].links").value(1))
+				.andExpect(jsonPath("$[1].trip_id").value(first))
+				.andExpect(jsonPath("$[1].participants").value(3))
+				.andExpect(jsonPath("$[1].confirmed_participants").value(1))
+				.andExpect(jsonPath("$[1].activities").value(1))
+				.andExpect(jsonPath("$[1].links").value(0));
+	}
+
+	@Test
+	void rejectsTooManyIds() throws Exception {
+		mockMvc.perform(get("/trips/stats").param("ids", String.join(",", Collections.nCopies(501, UUID.randomUUID().toString()))))
+				.andExpect(status().isBadRequest());
+	}
+
+	private String createTrip(String emails) throws Exception {
+		String created = mockMvc.perform(post("/trips").contentType(MediaType.APPLICATION_JSON).content("""
+						{"destination":"Rio","starts_at":"2024-07-01T10:00:00","ends_at":"2024-07-05T10:00:00","emails_to_invite":%s,"owner_email":"o@x.com","owner_name":"O"}
+						""".formatted(emails)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return JsonPath.read(created, "$.tripId");
+	}
+}
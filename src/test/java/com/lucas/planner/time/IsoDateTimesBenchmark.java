@@ -0,0 +1,32 @@
+package com.lucas.planner.time;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara IsoDateTimes com LocalDateTime.parse(text, ISO_DATE_TIME) nos formatos recebidos pelos payloads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IsoDateTimesBenchmark {
+
+	@Param({"2024-07-01T10:00:00", "2024-07-01T10:00:00.123"})
+	public String text;
+
+	@Benchmark
+	public LocalDateTime isoDateTimes() {
+		return IsoDateTimes.parse(this.text);
+	}
+
+	@Benchmark
+	public LocalDateTime isoDateTimeFormatter() {
+		return LocalDateTime.parse(this.text, DateTimeFormatter.ISO_DATE_TIME);
+	}
+}
@@ -0,0 +1,74 @@
+package com.lucas.planner.time;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.lucas.planner.activity.ActivityRequestPayload;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Confere que IsoDateTimes aceita e rejeita exatamente o que LocalDateTime.parse(text, ISO_DATE_TIME) aceita e rejeita.
+ */
+class IsoDateTimesTests {
+
+	private static final List<String> VALID = List.of(
+			"2024-07-01T10:00",
+			"2024-07-01T10:00:00",
+			"2024-07-01T23:59:59.9",
+			"2024-07-01T23:59:59.123",
+			"2024-07-01T23:59:59.123456789",
+			"2024-02-29T00:00:00",
+			// Formatos fora do caminho rápido, atendidos pelo ISO_DATE_TIME
+			"2024-07-01t10:00:00",
+			"2024-07-01T10:00:00.",
+			"2024-07-01T10:00:00Z",
+			"2024-07-01T10:00:00-03:00",
+			"2024-07-01T10:00:00+01:00[Europe/Paris]",
+			"+12024-07-01T10:00:00"
+	);
+
+	private static final List<String> INVALID = List.of(
+			"",
+			"2024-07-01",
+			"2024-07-01 10:00:00",
+			"2024-13-01T10:00:00",
+			"2023-02-29T10:00:00",
+			"2024-07-01T24:00:00",
+			"2024-07-01T10:60:00",
+			"2024-07-01T10:00:00.1234567890",
+			"2024-07-0aT10:00:00",
+			"2024/07/01T10:00:00"
+	);
+
+	@Test
+	void parsesLikeIsoDateTime() {
+		for (String text : VALID) {
+			assertEquals(LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME), IsoDateTimes.parse(text), text);
+		}
+	}
+
+	@Test
+	void rejectsLikeIsoDateTime() {
+		for (String text : INVALID) {
+			assertThrows(DateTimeParseException.class, () -> LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME), text);
+			assertThrows(DateTimeParseException.class, () -> IsoDateTimes.parse(text), text);
+		}
+	}
+
+	@Test
+	void deserializerRejectsInvalidPayloadDates() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper();
+
+		ActivityRequestPayload payload = objectMapper.readValue("{\"title\":\"Praia\",\"occurs_at\":\"2024-07-02T10:00:00\"}", ActivityRequestPayload.class);
+		assertEquals(LocalDateTime.of(2024, 7, 2, 10, 0), payload.occurs_at());
+
+		assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("{\"title\":\"Praia\",\"occurs_at\":\"amanhã\"}", ActivityRequestPayload.class));
+	}
+}
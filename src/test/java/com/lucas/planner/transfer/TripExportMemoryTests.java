@@ -0,0 +1,118 @@
+package com.lucas.planner.transfer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Exporta 1.000 viagens com 1.000.000 de filhos no total com um heap de 128 MB.
+ * Fica fora do build padrão pela demora em popular o banco; rode com mvn test -Pmemory-tests.
+ * O banco fica em arquivo para que os dados não ocupem o heap, com as mesmas opções do H2 da aplicação;
+ * se a exportação ou o banco materializassem os resultados, o teste estouraria a memória.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		// Só o armazenamento muda: as opções do H2 são as da aplicação (planner.datasource.h2-options), com LAZY_QUERY_EXECUTION
+		"spring.datasource.url=jdbc:h2:file:./target/export-memory-tests/planner-${random.uuid};${planner.datasource.h2-options}",
+		"planner.mail.poll-interval=PT1H"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TripExportMemoryTests {
+
+	private static final int TRIPS = 1_000;
+
+	private static final int PARTICIPANTS_PER_TRIP = 500;
+
+	private static final int ACTIVITIES_PER_TRIP = 250;
+
+	private static final int LINKS_PER_TRIP = 250;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@BeforeAll
+	void seed() {
+		jdbcTemplate.update("""
+				INSERT INTO trips (id, destination, starts_at, ends_at, is_confirmed, owner_name, owner_email, version)
+				SELECT RANDOM_UUID(), 'Destino ' || X, TIMESTAMP '2024-07-01 10:00:00', TIMESTAMP '2024-07-05 10:00:00', FALSE, 'Dono', 'dono@x.com', 0
+				FROM SYSTEM_RANGE(1, ?)
+				""", TRIPS);
+		jdbcTemplate.update("""
+				INSERT INTO participants (id, name, email, is_confirmed, trip_id)
+				SELECT RANDOM_UUID(), 'Participante ' || r.X, 'p' || r.X || '@x.com', FALSE, t.id FROM trips t CROSS JOIN SYSTEM_RANGE(1, ?) r
+				""", PARTICIPANTS_PER_TRIP);
+		jdbcTemplate.update("""
+				INSERT INTO activities (id, title, occurs_at, trip_id)
+				SELECT RANDOM_UUID(), 'Atividade ' || r.X, DATEADD(MINUTE, r.X, TIMESTAMP '2024-07-01 10:00:00'), t.id FROM trips t CROSS JOIN SYSTEM_RANGE(1, ?) r
+				""", ACTIVITIES_PER_TRIP);
+		jdbcTemplate.update("""
+				INSERT INTO links (id, title, url, trip_id)
+				SELECT RANDOM_UUID(), 'Link ' || r.X, 'https://x.com/' || r.X, t.id FROM trips t CROSS JOIN SYSTEM_RANGE(1, ?) r
+				""", LINKS_PER_TRIP);
+	}
+
+	@AfterAll
+	void dropDatabase() {
+		jdbcTemplate.execute("DROP ALL OBJECTS DELETE FILES");
+	}
+
+	@Test
+	void exportsEveryTripWithConstantMemory() throws Exception {
+		long[] totals = export("/admin/trips/export");
+
+		assertEquals(TRIPS, totals[0]);
+		assertEquals((long) TRIPS * (PARTICIPANTS_PER_TRIP + ACTIVITIES_PER_TRIP + LINKS_PER_TRIP), totals[1]);
+	}
+
+	@Test
+	void exportsSingleTrip() throws Exception {
+		UUID tripId = jdbcTemplate.queryForObject("SELECT id FROM trips LIMIT 1", UUID.class);
+
+		long[] totals = export("/trips/" + tripId + "/export");
+
+		assertEquals(1, totals[0]);
+		assertEquals(PARTICIPANTS_PER_TRIP + ACTIVITIES_PER_TRIP + LINKS_PER_TRIP, totals[1]);
+	}
+
+	// Lê a resposta linha a linha e devolve {viagens, filhos}
+	private long[] export(String path) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+		HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+		assertEquals(200, response.statusCode());
+
+		long trips = 0;
+		long children = 0;
+		try (MappingIterator<JsonNode> lines = objectMapper.readerFor(JsonNode.class).readValues(response.body())) {
+			while (lines.hasNext()) {
+				JsonNode trip = lines.next();
+				trips++;
+				children += trip.get("participants").size() + trip.get("activities").size() + trip.get("links").size();
+			}
+		}
+		return new long[] { trips, children };
+	}
+}
@@ -0,0 +1,190 @@
+package com.lucas.planner.transfer;
+
+import com.lucas.planner.stats.TripStatsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Importação NDJSON (POST /admin/trips/import) com blocos de 3 linhas do banco (uma viagem com um participante ocupa 2),
+ * no máximo 2 erros relatados e linhas de até 1000 caracteres.
+ * Cada teste usa um destino próprio para contar só as suas viagens no banco compartilhado.
+ */
+@SpringBootTest(properties = {
+		"planner.mail.poll-interval=PT1H",
+		"planner.transfer.import.chunk-rows=3",
+		"planner.transfer.import.max-reported-errors=2",
+		"planner.transfer.import.max-line-length=1000"
+})
+@AutoConfigureMockMvc
+class TripImportServiceTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void importsValidLinesInChunks() throws Exception {
+		String destination = destination();
+		// 5 viagens em blocos de 2, 2 e 1, com os terminadores \n e \r\n e uma linha em branco no meio
+		String body = trip(UUID.randomUUID(), destination) + "\r\n" + trip(UUID.randomUUID(), destination) + "\n\n"
+				+ IntStream.range(0, 3).mapToObj(i -> trip(UUID.randomUUID(), destination)).collect(Collectors.joining("\n"));
+
+		importTrips(body)
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.received").value(5))
+				.andExpect(jsonPath("$.imported").value(5))
+				.andExpect(jsonPath("$.failed").value(0))
+				.andExpect(jsonPath("$.errors.length()").value(0));
+
+		assertEquals(5, count("SELECT COUNT(*) FROM trips WHERE destination = ?", destination));
+		assertEquals(5, count("SELECT COUNT(*) FROM participants p JOIN trips t ON t.id = p.trip_id WHERE t.destination = ?", destination));
+		assertEquals(5 * TripStatsService.STRIPES, count("SELECT COUNT(*) FROM trip_stats s JOIN trips t ON t.id = s.trip_id WHERE t.destination = ?", destination));
+		assertEquals(5, count("SELECT SUM(s.participants) FROM trip_stats s JOIN trips t ON t.id = s.trip_id WHERE t.destination = ?", destination));
+	}
+
+	@Test
+	void rejectedChunkIsRetriedLineByLine() throws Exception {
+		String destination = destination();
+		UUID existing = UUID.randomUUID();
+		importTrips(trip(existing, destination)).andExpect(status().isOk());
+
+		// A segunda linha repete uma viagem já gravada: o bloco das linhas 1 e 2 é rejeitado pela chave primária
+		// e regravado linha a linha, então só a repetida fica de fora
+		importTrips(String.join("\n", trip(UUID.randomUUID(), destination), trip(existing, destination), trip(UUID.randomUUID(), destination)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.received").value(3))
+				.andExpect(jsonPath("$.imported").value(2))
+				.andExpect(jsonPath("$.failed").value(1))
+				.andExpect(jsonPath("$.errors[0].line").value(2))
+				.andExpect(jsonPath("$.errors[0].message").value(startsWith("Rejeitada pelo banco")));
+
+		assertEquals(3, count("SELECT COUNT(*) FROM trips WHERE destination = ?", destination));
+		// Nenhuma linha do bloco rejeitado ficou gravada pela metade
+		assertEquals(3, count("SELECT COUNT(*) FROM participants p JOIN trips t ON t.id = p.trip_id WHERE t.destination = ?", destination));
+	}
+
+	@Test
+	void repeatedIdsInTheSameBodyKeepTheFirstLine() throws Exception {
+		String destination = destination();
+		UUID repeated = UUID.randomUUID();
+
+		importTrips(String.join("\n", trip(repeated, destination), trip(repeated, destination + " repetida")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(1))
+				.andExpect(jsonPath("$.failed").value(1))
+				.andExpect(jsonPath("$.errors[0].line").value(2));
+
+		assertEquals(destination, jdbcTemplate.queryForObject("SELECT destination FROM trips WHERE id = ?", String.class, repeated));
+	}
+
+	@Test
+	void reportsOnlyTheFirstErrors() throws Exception {
+		String destination = destination();
+		// Também a linha null e listas com elementos nulos, que são rejeitadas sem derrubar a importação das válidas
+		String body = String.join("\n", "{", "[]", trip(UUID.randomUUID(), destination), "{\"destination\":\"Sem datas\"}", "nulo", "{\"id\":1}",
+				"null", "{\"participants\":[null]}", "{\"activities\":[null],\"links\":[]}", trip(UUID.randomUUID(), destination));
+
+		importTrips(body)
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.received").value(10))
+				.andExpect(jsonPath("$.imported").value(2))
+				.andExpect(jsonPath("$.failed").value(8))
+				.andExpect(jsonPath("$.errors.length()").value(2))
+				.andExpect(jsonPath("$.errors[0].line").value(1))
+				.andExpect(jsonPath("$.errors[1].line").value(2));
+
+		assertEquals(2, count("SELECT COUNT(*) FROM trips WHERE destination = ?", destination));
+	}
+
+	@Test
+	void nullTripsAndChildrenAreLineErrors() throws Exception {
+		String destination = destination();
+		String withNullParticipant = trip(UUID.randomUUID(), destination).replace("\"participants\":[", "\"participants\":[null,");
+
+		importTrips(String.join("\n", "null", withNullParticipant, trip(UUID.randomUUID(), destination)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(1))
+				.andExpect(jsonPath("$.failed").value(2))
+				.andExpect(jsonPath("$.errors[0].line").value(1))
+				.andExpect(jsonPath("$.errors[0].message").value("A linha precisa ser um objeto de viagem"))
+				.andExpect(jsonPath("$.errors[1].line").value(2))
+				.andExpect(jsonPath("$.errors[1].message").value("participants, activities e links não podem ter elementos nulos"));
+
+		assertEquals(1, count("SELECT COUNT(*) FROM trips WHERE destination = ?", destination));
+	}
+
+	@Test
+	void emailsAreNormalizedBeforeTheDuplicateCheck() throws Exception {
+		String destination = destination();
+		UUID imported = UUID.randomUUID();
+		String repeated = trip(UUID.randomUUID(), destination).replace("\"participants\":[", "\"participants\":[{\"name\":\"Q\",\"email\":\" P@X.com \"},");
+		String mixedCase = trip(imported, destination).replace("o@x.com", " Dono@X.com ").replace("p@x.com", "Convidado@X.COM");
+
+		importTrips(String.join("\n", repeated, mixedCase))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(1))
+				.andExpect(jsonPath("$.failed").value(1))
+				.andExpect(jsonPath("$.errors[0].line").value(1))
+				.andExpect(jsonPath("$.errors[0].message").value("Emails de participantes repetidos"));
+
+		assertEquals("dono@x.com", jdbcTemplate.queryForObject("SELECT owner_email FROM trips WHERE id = ?", String.class, imported));
+		assertEquals("convidado@x.com", jdbcTemplate.queryForObject("SELECT email FROM participants WHERE trip_id = ?", String.class, imported));
+
+		// O convidado importado confirma pelo email, em qualquer caixa, como os convidados pela API
+		mockMvc.perform(post("/trips/{id}/rsvp", imported).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"CONVIDADO@x.com\",\"name\":\"C\"}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.isConfirmed").value(true));
+	}
+
+	@Test
+	void skipsLinesLongerThanTheLimit() throws Exception {
+		String destination = destination();
+		String longLine = trip(UUID.randomUUID(), destination + " " + "x".repeat(1000));
+
+		importTrips(String.join("\n", longLine, trip(UUID.randomUUID(), destination)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.received").value(2))
+				.andExpect(jsonPath("$.imported").value(1))
+				.andExpect(jsonPath("$.failed").value(1))
+				.andExpect(jsonPath("$.errors[0].line").value(1))
+				.andExpect(jsonPath("$.errors[0].message").value("Linha maior que 1000 caracteres"));
+
+		assertEquals(1, count("SELECT COUNT(*) FROM trips WHERE destination LIKE ?", destination + "%"));
+	}
+
+	private ResultActions importTrips(String body) throws Exception {
+		return mockMvc.perform(post("/admin/trips/import").contentType(MediaType.parseMediaType(TripTransferController.APPLICATION_NDJSON_VALUE)).content(body));
+	}
+
+	private static String trip(UUID id, String destination) {
+		return """
+				{"id":"%s","destination":"%s","starts_at":"2024-07-01T10:00:00","ends_at":"2024-07-05T10:00:00","owner_name":"O","owner_email":"o@x.com","participants":[{"name":"P","email":"p@x.com","is_confirmed":false}],"activities":[],"links":[]}"""
+				.formatted(id, destination);
+	}
+
+	private static String destination() {
+		return "Importada " + UUID.randomUUID();
+	}
+
+	private int count(String sql, String destination) {
+		return jdbcTemplate.queryForObject(sql, Integer.class, destination);
+	}
+}
@@ -0,0 +1,319 @@
+package com.lucas.planner.trip;
+
+import com.jayway.jsonpath.JsonPath;
+import com.lucas.planner.activity.Activity;
+import com.lucas.planner.activity.ActivityRepository;
+import com.lucas.planner.link.Link;
+import com.lucas.planner.link.LinkRepository;
+import com.lucas.planner.participant.Participant;
+import com.lucas.planner.participant.ParticipantRepository;
+import com.lucas.planner.stats.TripStatsService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conta, pelas estatísticas do Hibernate, quantas instruções SQL cada endpoint do TripController emite,
+ * para que regressões do tipo N+1 quebrem o build.
+ */
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		// Mantém o despachante de emails parado durante as medições
+		"planner.mail.poll-interval=PT1H"
+})
+@AutoConfigureMockMvc
+class TripControllerStatementCountTests {
+
+	private static final String TRIP_JSON = """
+			{"destination":"Rio","starts_at":"2024-07-01T10:00:00","ends_at":"2024-07-05T10:00:00","emails_to_invite":["a@x.com","b@x.com"],"owner_email":"o@x.com","owner_name":"O"}
+			""";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TripRepository tripRepository;
+
+	@Autowired
+	private ParticipantRepository participantRepository;
+
+	@Autowired
+	private ActivityRepository activityRepository;
+
+	@Autowired
+	private LinkRepository linkRepository;
+
+	@Autowired
+	private TripStatsService tripStatsService;
+
+	private Statistics statistics;
+
+	private UUID tripId;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		// Viagem com vários filhos de cada tipo, para que um N+1 apareça na contagem
+		Trip trip = new Trip(null, "Rio", LocalDateTime.of(2024, 7, 1, 10, 0), LocalDateTime.of(2024, 7, 5, 10, 0), false, "O", "o@x.com", null);
+		tripRepository.save(trip);
+		tripId = trip.getId();
+		tripStatsService.createStats(tripId);
+
+		for (int i = 0; i < 3; i++) {
+			participantRepository.save(new Participant("p" + i + "@x.com", trip));
+			activityRepository.save(new Activity("Atividade " + i, LocalDateTime.of(2024, 7, 2, 10, 0), trip));
+			linkRepository.save(new Link("Link " + i, "https://x.com/" + i, trip));
+		}
+	}
+
+	@Test
+	void createTrip() throws Exception {
+		// Viagem, faixas dos contadores, lote de participantes e contador de participantes
+		assertStatements(4, post("/trips").contentType(MediaType.APPLICATION_JSON).content(TRIP_JSON));
+	}
+
+	@Test
+	void getTripDetails() throws Exception {
+		assertStatements(1, get("/trips/{id}", tripId));
+
+		// Segunda leitura servida pelo cache de viagens
+		assertStatements(0, get("/trips/{id}", tripId));
+	}
+
+	@Test
+	void getTripItinerary() throws Exception {
+		assertStatements(4, get("/trips/{id}/itinerary", tripId));
+	}
+
+	@Test
+	void batchGetTrips() throws Exception {
+		Trip other = new Trip(null, "Salvador", LocalDateTime.of(2024, 8, 1, 10, 0), LocalDateTime.of(2024, 8, 5, 10, 0), false, "O", "o@x.com", null);
+		tripRepository.save(other);
+		UUID unknown = UUID.randomUUID();
+		String body = "{\"ids\":[\"" + other.getId() + "\",\"" + unknown + "\",\"" + tripId + "\",\"" + other.getId() + "\"]}";
+
+		// Uma viagem já no cache; as demais em uma única consulta IN
+		assertStatements(1, get("/trips/{id}", tripId));
+		assertStatements(1, post("/trips:batchGet").contentType(MediaType.APPLICATION_JSON).content(body));
+
+		// As viagens encontradas entraram no cache; só a inexistente volta ao banco
+		assertStatements(1, post("/trips:batchGet").contentType(MediaType.APPLICATION_JSON).content(body));
+		assertStatements(0, get("/trips/{id}", other.getId()));
+
+		mockMvc.perform(post("/trips:batchGet").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(jsonPath("$.length()").value(4))
+				.andExpect(jsonPath("$[0].id").value(other.getId().toString()))
+				.andExpect(jsonPath("$[0].trip.destination").value("Salvador"))
+				.andExpect(jsonPath("$[1].id").value(unknown.toString()))
+				.andExpect(jsonPath("$[1].found").value(false))
+				.andExpect(jsonPath("$[1].trip").doesNotExist())
+				.andExpect(jsonPath("$[2].trip.destination").value("Rio"))
+				.andExpect(jsonPath("$[3].found").value(true));
+	}
+
+	@Test
+	void searchTrips() throws Exception {
+		String owner = UUID.randomUUID() + "@x.com";
+		for (int day = 1; day <= 3; day++) {
+			tripRepository.save(new Trip(null, "Rio " + day, LocalDateTime.of(2030, 1, day, 10, 0), LocalDateTime.of(2030, 1, day + 2, 10, 0), false, "O", owner, null));
+		}
+		tripRepository.save(new Trip(null, "Rio_x", LocalDateTime.of(2030, 2, 1, 10, 0), LocalDateTime.of(2030, 2, 2, 10, 0), false, "O", "outro@x.com", null));
+
+		// Cada página é uma única consulta, das viagens que começam mais tarde para as mais cedo
+		assertStatements(1, get("/trips").param("owner_email", owner).param("limit", "2"));
+
+		String page = mockMvc.perform(get("/trips").param("owner_email", owner).param("limit", "2"))
+				.andExpect(jsonPath("$.items.length()").value(2))
+				.andExpect(jsonPath("$.items[0].destination").value("Rio 3"))
+				.andExpect(jsonPath("$.items[1].destination").value("Rio 2"))
+				.andReturn().getResponse().getContentAsString();
+		String cursor = JsonPath.read(page, "$.next_cursor");
+
+		assertStatements(1, get("/trips").param("owner_email", owner).param("limit", "2").param("cursor", cursor));
+		mockMvc.perform(get("/trips").param("owner_email", owner).param("limit", "2").param("cursor", cursor))
+				.andExpect(jsonPath("$.items.length()").value(1))
+				.andExpect(jsonPath("$.items[0].destination").value("Rio 1"))
+				.andExpect(jsonPath("$.next_cursor").doesNotExist());
+
+		// Sobreposição com o período: a viagem do dia 1 termina no dia 3 e entra; a do dia 3 começa depois do fim e fica de fora
+		mockMvc.perform(get("/trips").param("owner_email", owner).param("from", "2030-01-03T00:00:00").param("to", "2030-01-02T23:00:00"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/trips").param("owner_email", owner).param("from", "2030-01-03T00:00:00").param("to", "2030-01-03T09:00:00"))
+				.andExpect(jsonPath("$.items.length()").value(2))
+				.andExpect(jsonPath("$.items[0].destination").value("Rio 2"))
+				.andExpect(jsonPath("$.items[1].destination").value("Rio 1"));
+
+		// O prefixo do destino é literal: o _ não funciona como curinga
+		mockMvc.perform(get("/trips").param("destination", "Rio_"))
+				.andExpect(jsonPath("$.items.length()").value(1))
+				.andExpect(jsonPath("$.items[0].destination").value("Rio_x"));
+
+		assertStatements(400, 0, get("/trips"));
+		assertStatements(400, 0, get("/trips").param("from", "ontem"));
+		assertStatements(400, 0, get("/trips").param("owner_email", owner).param("from", "2030-01-03T00:00:00"));
+		// Filtros em branco não viram uma varredura do índice inteiro, nem acompanhados de outro filtro
+		assertStatements(400, 0, get("/trips").param("destination", ""));
+		assertStatements(400, 0, get("/trips").param("destination", "  ").param("owner_email", owner));
+		assertStatements(400, 0, get("/trips").param("owner_email", " "));
+	}
+
+	@Test
+	void updateTrip() throws Exception {
+		assertStatements(1, get("/trips/{id}", tripId));
+		// Leitura da viagem, UPDATE com o incremento da versão e releitura da revisão devolvida
+		assertStatements(3, put("/trips/{id}", tripId).contentType(MediaType.APPLICATION_JSON).content(TRIP_JSON.replace("Rio", "Salvador")));
+
+		// A alteração invalida o cache, então a próxima leitura volta ao banco
+		assertStatements(1, get("/trips/{id}", tripId));
+	}
+
+	@Test
+	void confirmTrip() throws Exception {
+		// UPDATE condicional da confirmação, emails dos participantes em um INSERT ... SELECT e releitura da revisão devolvida
+		assertStatements(3, get("/trips/{id}/confirm", tripId));
+
+		// Viagem já confirmada: o UPDATE não encontra o que mudar e nenhum email é enfileirado de novo
+		assertStatements(2, get("/trips/{id}/confirm", tripId));
+	}
+
+	@Test
+	void inviteParticipant() throws Exception {
+		// Inserção do participante, contador (que conta também a alteração da viagem) e email condicional à viagem confirmada
+		assertStatements(3, post("/trips/{id}/invite", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"novo@x.com\"}"));
+
+		// Convite repetido: o MERGE não insere e o participante existente é devolvido, sem email nem nova revisão
+		assertStatements(2, post("/trips/{id}/invite", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"novo@x.com\"}"));
+	}
+
+	@Test
+	void confirmParticipant() throws Exception {
+		// UPDATE condicional, contador de confirmados (que conta também a alteração da viagem) e leitura do participante
+		assertStatements(3, post("/trips/{id}/rsvp", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"p0@x.com\",\"name\":\"P\"}"));
+
+		// Retentativa: nem a confirmação nem a troca de nome encontram algo a mudar, e a revisão fica como está
+		assertStatements(3, post("/trips/{id}/rsvp", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"p0@x.com\",\"name\":\"P\"}"));
+		assertStatements(404, 2, post("/trips/{id}/rsvp", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"outro@x.com\"}"));
+	}
+
+	@Test
+	void listChildren() throws Exception {
+		// A revisão da viagem, usada na ETag, vem do cache; só a listagem vai ao banco
+		assertStatements(1, get("/trips/{id}", tripId));
+
+		for (String children : List.of("participants", "activities", "links")) {
+			assertStatements(1, get("/trips/{id}/" + children, tripId));
+			assertStatements(1, get("/trips/{id}/" + children, tripId).param("limit", "2"));
+		}
+	}
+
+	@Test
+	void activitiesTimeline() throws Exception {
+		// Datas da viagem pelo cache e uma única leitura das atividades do período
+		assertStatements(1, get("/trips/{id}", tripId));
+		assertStatements(1, get("/trips/{id}/activities/timeline", tripId));
+		assertStatements(1, get("/trips/{id}/activities/timeline", tripId).param("zone", "America/Sao_Paulo"));
+	}
+
+	@Test
+	void conditionalGetSkipsChildQueries() throws Exception {
+		for (String path : List.of("", "/participants", "/activities", "/links", "/itinerary", "/activities/conflicts")) {
+			String etag = mockMvc.perform(get("/trips/{id}" + path, tripId)).andReturn().getResponse().getHeader("ETag");
+
+			assertStatements(304, 0, get("/trips/{id}" + path, tripId).header("If-None-Match", etag));
+		}
+
+		// Uma alteração em um filho muda a ETag
+		String etag = mockMvc.perform(get("/trips/{id}/links", tripId)).andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(post("/trips/{id}/links", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Reserva\",\"url\":\"https://x.com\"}"));
+		assertStatements(200, 2, get("/trips/{id}/links", tripId).header("If-None-Match", etag));
+	}
+
+	@Test
+	void addActivity() throws Exception {
+		// Datas da viagem, montagem do índice de conflitos, inserção da atividade e contador, sem tocar a linha da viagem
+		assertStatements(4, post("/trips/{id}/activities", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Praia\",\"occurs_at\":\"2024-07-02T10:00:00\"}"));
+
+		// Com o índice já montado, a validação não relê as atividades; a viagem volta ao banco porque a revisão mudou
+		assertStatements(3, post("/trips/{id}/activities", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Museu\",\"occurs_at\":\"2024-07-03T10:00:00\",\"duration_minutes\":90}"));
+
+		// Fora do período da viagem ou com duração negativa, nada é gravado
+		assertStatements(400, 1, post("/trips/{id}/activities", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Volta\",\"occurs_at\":\"2024-07-05T09:00:00\",\"duration_minutes\":120}"));
+		assertStatements(400, 0, post("/trips/{id}/activities", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Antes\",\"occurs_at\":\"2024-06-30T10:00:00\"}"));
+		assertStatements(400, 0, post("/trips/{id}/activities", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Praia\",\"occurs_at\":\"2024-07-02T10:00:00\",\"duration_minutes\":-1}"));
+	}
+
+	@Test
+	void activityConflicts() throws Exception {
+		// As três atividades do setUp começam no mesmo instante: três pares em conflito
+		assertStatements(1, get("/trips/{id}", tripId));
+		assertStatements(1, get("/trips/{id}/activities/conflicts", tripId));
+		assertStatements(0, get("/trips/{id}/activities/conflicts", tripId));
+
+		// Uma atividade que cobre o horário das três conflita com todas; a validação usa só o índice em memória
+		assertStatements(2, post("/trips/{id}/activities", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Trilha\",\"occurs_at\":\"2024-07-02T09:30:00\",\"duration_minutes\":60}"));
+
+		// Começar exatamente no fim da anterior não é conflito
+		mockMvc.perform(post("/trips/{id}/activities", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Almoço\",\"occurs_at\":\"2024-07-02T10:30:00\",\"duration_minutes\":60}"))
+				.andExpect(jsonPath("$.conflicts.length()").value(0));
+
+		// A revisão mudou, então só a viagem volta ao banco; o índice já contém as novas atividades
+		assertStatements(1, get("/trips/{id}/activities/conflicts", tripId));
+		mockMvc.perform(get("/trips/{id}/activities/conflicts", tripId))
+				.andExpect(jsonPath("$.length()").value(6))
+				.andExpect(jsonPath("$[0].overlap_starts_at").value("2024-07-02T10:00:00"))
+				.andExpect(jsonPath("$[0].overlap_ends_at").value("2024-07-02T10:00:00"));
+
+		// Viagem inexistente não entra no cache: é lida na checagem da ETag e de novo na busca
+		assertStatements(404, 2, get("/trips/{id}/activities/conflicts", UUID.randomUUID()));
+	}
+
+	@Test
+	void registerLink() throws Exception {
+		// Inserção do link e contador, sem tocar a linha da viagem
+		assertStatements(2, post("/trips/{id}/links", tripId).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Reserva\",\"url\":\"https://x.com\"}"));
+	}
+
+	@Test
+	void childInsertsIntoUnknownTripAreNotFound() throws Exception {
+		UUID unknown = UUID.randomUUID();
+
+		// A atividade para na leitura das datas da viagem; o contador do link não encontra faixas e a inserção,
+		// feita no commit, falha pela chave estrangeira
+		assertStatements(404, 1, post("/trips/{id}/activities", unknown).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Praia\",\"occurs_at\":\"2024-07-02T10:00:00\"}"));
+		assertStatements(404, 2, post("/trips/{id}/links", unknown).contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Reserva\",\"url\":\"https://x.com\"}"));
+		assertStatements(404, 1, post("/trips/{id}/invite", unknown).contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"novo@x.com\"}"));
+	}
+
+	private void assertStatements(long expected, RequestBuilder request) throws Exception {
+		assertStatements(200, expected, request);
+	}
+
+	private void assertStatements(int expectedStatus, long expected, RequestBuilder request) throws Exception {
+		statistics.clear();
+
+		mockMvc.perform(request).andExpect(status().is(expectedStatus));
+
+		assertEquals(expected, statistics.getPrepareStatementCount(), "Quantidade de instruções SQL emitidas");
+	}
+}
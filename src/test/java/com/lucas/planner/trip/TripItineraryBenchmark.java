@@ -0,0 +1,94 @@
+package com.lucas.planner.trip;
+
+import com.lucas.planner.BenchmarkContexts;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /trips/{id}/itinerary contra as quatro chamadas que ele substitui (a viagem e as listas de participantes,
+ * atividades e links), em requisições HTTP completas ao Tomcat local, com o H2 em memória.
+ * As quatro chamadas são medidas em sequência, como um cliente que espera cada resposta, e em paralelo.
+ * A viagem tem rows filhos de cada tipo; todas as respostas são lidas por inteiro.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TripItineraryBenchmark {
+
+	@Param({"10", "1000"})
+	public int rows;
+
+	private ServletWebServerApplicationContext context;
+
+	private HttpClient client;
+
+	private HttpRequest itinerary;
+
+	private List<HttpRequest> separate;
+
+	@Setup
+	public void setUp() {
+		context = BenchmarkContexts.startWeb();
+		UUID tripId = BenchmarkContexts.seedTrip(context.getBean(JdbcTemplate.class), rows, rows, rows);
+
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		String trip = "http://localhost:" + context.getWebServer().getPort() + "/trips/" + tripId;
+		itinerary = get(trip + "/itinerary");
+		separate = List.of(get(trip), get(trip + "/participants"), get(trip + "/activities"), get(trip + "/links"));
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public String aggregated() throws Exception {
+		return send(itinerary);
+	}
+
+	@Benchmark
+	public int separateSequential() throws Exception {
+		int length = 0;
+		for (HttpRequest request : separate) {
+			length += send(request).length();
+		}
+		return length;
+	}
+
+	@Benchmark
+	public int separateParallel() {
+		List<CompletableFuture<HttpResponse<String>>> responses = separate.stream()
+				.map(request -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+				.toList();
+		return responses.stream().map(CompletableFuture::join).mapToInt(response -> checked(response).length()).sum();
+	}
+
+	private String send(HttpRequest request) throws Exception {
+		return checked(client.send(request, HttpResponse.BodyHandlers.ofString()));
+	}
+
+	private static String checked(HttpResponse<String> response) {
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException(response.uri() + " respondeu " + response.statusCode());
+		}
+		return response.body();
+	}
+
+	private static HttpRequest get(String uri) {
+		return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+	}
+}
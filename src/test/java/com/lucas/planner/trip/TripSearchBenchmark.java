@@ -0,0 +1,130 @@
+package com.lucas.planner.trip;
+
+import com.lucas.planner.BenchmarkContexts;
+import com.lucas.planner.CapturingStatementInspector;
+import com.lucas.planner.pagination.CursorPage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca de viagens (GET /trips) pelo TripService sobre um milhão de viagens geradas, com o H2 em memória.
+ * Cada filtro é medido na primeira página e na página seguinte ao cursor. No setup, as duas consultas são executadas uma vez,
+ * o SQL que o Hibernate gera para elas é capturado e o plano de cada uma é verificado com EXPLAIN: o benchmark falha
+ * se alguma não for servida pelo índice esperado. O EXPLAIN é feito com os parâmetros em aberto, como o H2 prepara a consulta.
+ *
+ * Limites medidos (1 CPU, H2 2.2, página de 50): "owner", "owner-window" e "destination" ficam abaixo de 1 ms,
+ * porque o índice entrega poucas centenas de linhas. As janelas não: o H2 lê o intervalo starts_at <= to do
+ * idx_trips_starts_at_ends_at em ordem crescente, filtra ends_at >= from e ordena o que sobra, então o custo cresce
+ * com as viagens que começam antes do fim da janela (cerca de 33 ms em "window", no meio dos dados).
+ * "sparse-window" pede uma janela logo depois da última viagem, que só as poucas viagens mais longas alcançam:
+ * o índice inteiro é lido para menos de uma página (cerca de 57 ms), e nextPage repete a primeira página, que já é a última.
+ * "short-prefix" ("Destino 1", cerca de 11% das viagens) lê do idx_trips_destination todas as viagens do prefixo
+ * e as ordena por starts_at antes de devolver a página (cerca de 94 ms).
+ * Prefixos curtos e janelas sem o dono precisariam de um limite inferior em starts_at (uma duração máxima das viagens)
+ * ou de um índice por período para ficar no mesmo patamar dos demais filtros.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TripSearchBenchmark {
+
+	private static final int TRIPS = 1_000_000;
+
+	private static final int LIMIT = 50;
+
+	@Param({"owner", "window", "owner-window", "destination", "short-prefix", "sparse-window"})
+	public String filter;
+
+	private ConfigurableApplicationContext context;
+
+	private TripService tripService;
+
+	private TripSearchCriteria criteria;
+
+	private String cursor;
+
+	@Setup
+	public void setUp() {
+		// Sem OPTIMIZE_REUSE_RESULTS o H2 executa cada busca de novo; com ele, repetir a mesma consulta sem escritas
+		// no meio devolve o resultado anterior, e o benchmark mediria só o Hibernate
+		context = BenchmarkContexts.start(CapturingStatementInspector.PROPERTY, "spring.datasource.url=jdbc:h2:mem:planner;${planner.datasource.h2-options};OPTIMIZE_REUSE_RESULTS=FALSE");
+		tripService = context.getBean(TripService.class);
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+		// 20 mil donos com 50 viagens cada e 10 mil destinos, ao longo de cerca de 9 anos e meio
+		BenchmarkContexts.seedTrips(jdbcTemplate, TRIPS, 20_000, 10_000);
+
+		LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+		LocalDateTime to = from.plusDays(7);
+		// 13 dias depois do início da última viagem: só as que começaram no último dia e duram quase 14 dias chegam lá
+		LocalDateTime afterLast = jdbcTemplate.queryForObject("SELECT MAX(starts_at) FROM trips", LocalDateTime.class).plusDays(13);
+
+		criteria = switch (filter) {
+			case "owner" -> new TripSearchCriteria("dono77@x.com", null, null, null);
+			case "window" -> new TripSearchCriteria(null, from, to, null);
+			case "owner-window" -> new TripSearchCriteria("dono77@x.com", from.minusYears(2), to, null);
+			case "destination" -> new TripSearchCriteria(null, null, null, "Destino 1234");
+			// Destino 1, 10 a 19, 100 a 199 e 1000 a 1999: 1111 dos 10 mil destinos
+			case "short-prefix" -> new TripSearchCriteria(null, null, null, "Destino 1");
+			case "sparse-window" -> new TripSearchCriteria(null, afterLast, afterLast.plusDays(7), null);
+			default -> throw new IllegalArgumentException(filter);
+		};
+
+		List<String> statements = new ArrayList<>();
+		CapturingStatementInspector.start();
+		try {
+			cursor = tripService.searchTrips(criteria, null, LIMIT).next_cursor();
+			tripService.searchTrips(criteria, cursor, LIMIT);
+		} finally {
+			statements.addAll(CapturingStatementInspector.stop());
+		}
+
+		assertIndexed(jdbcTemplate, statements);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public CursorPage<TripData> firstPage() {
+		return tripService.searchTrips(criteria, null, LIMIT);
+	}
+
+	@Benchmark
+	public CursorPage<TripData> nextPage() {
+		return tripService.searchTrips(criteria, cursor, LIMIT);
+	}
+
+	/**
+	 * Executa EXPLAIN em cada instrução capturada e exige o índice do filtro medido; os planos vão para a saída do benchmark.
+	 */
+	private void assertIndexed(JdbcTemplate jdbcTemplate, List<String> statements) {
+		String expected = switch (filter) {
+			case "owner", "owner-window" -> "IDX_TRIPS_OWNER_EMAIL_STARTS_AT";
+			case "window", "sparse-window" -> "IDX_TRIPS_STARTS_AT_ENDS_AT";
+			default -> "IDX_TRIPS_DESTINATION";
+		};
+
+		if (statements.isEmpty()) {
+			throw new IllegalStateException("Nenhuma consulta capturada");
+		}
+		for (String sql : statements) {
+			String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+			System.out.println("\n" + filter + ":\n" + plan);
+			if (!plan.contains(expected)) {
+				throw new IllegalStateException("Consulta sem o índice " + expected + ":\n" + plan);
+			}
+		}
+	}
+}